@@ -0,0 +1,29 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes of small files that concurrent readers never see half written.
+ */
+final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /**
+     * Writes the bytes to a temporary file next to the path and moves it in place.
+     */
+    static void write(@Nonnull Path path, @Nonnull byte[] bytes) throws IOException {
+        Path absolutePath = path.toAbsolutePath();
+        Path temp = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+
+/**
+ * Archive bytes held in memory. The buffer may hold only a part of the archive, starting at a given archive
+ * position, positions before it must not be read. The bytes are never copied but into the buffers they are
+ * read into, and {@link #slice(long, int)} hands them out as read-only views.
+ */
+class ByteBufferByteSource implements SliceableByteSource {
+    private final ByteBuffer buffer;
+    private final long start;
+
+    /**
+     * @param buffer bytes between its position and limit
+     * @param start  archive position of the first byte of the buffer
+     */
+    ByteBufferByteSource(@Nonnull ByteBuffer buffer, long start) {
+        this.buffer = buffer.slice().asReadOnlyBuffer();
+        this.start = start;
+    }
+
+    @Override
+    public long size() {
+        return start + buffer.capacity();
+    }
+
+    @Override
+    public ByteBuffer slice(long position, int length) {
+        if (position < start || length < 0 || position + length > size()) {
+            throw new IllegalArgumentException("Range out of bounds: " + position + "+" + length);
+        }
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) (position - start)).limit((int) (position - start) + length);
+        return slice.slice();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) {
+        if (position < start) {
+            throw new IndexOutOfBoundsException("Position " + position + " precedes the buffered range at " + start);
+        }
+        long index = position - start;
+        if (index >= buffer.capacity()) {
+            return -1;
+        }
+        int length = (int) Math.min(dst.remaining(), buffer.capacity() - index);
+        ByteBuffer src = buffer.duplicate();
+        src.position((int) index).limit((int) index + length);
+        dst.put(src);
+        return length;
+    }
+}
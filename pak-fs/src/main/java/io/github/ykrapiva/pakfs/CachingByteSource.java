@@ -0,0 +1,106 @@
+package io.github.ykrapiva.pakfs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Least recently used aligned blocks of another source. Small reads are served from whole blocks, and a read
+ * of several missing blocks fetches them with one read of the other source, which pays off for sources with
+ * a high latency per read. Two threads missing the same block may both fetch it.
+ */
+class CachingByteSource implements PakByteSource {
+    private final PakByteSource delegate;
+    private final int blockSize;
+    private final Cache<Long, byte[]> blocks;
+    private volatile long size = -1;
+
+    CachingByteSource(@Nonnull PakByteSource delegate, int blockSize, long maxBytes) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (maxBytes < blockSize) {
+            throw new IllegalArgumentException("Cache of " + maxBytes + " bytes does not fit a block of " + blockSize);
+        }
+        this.delegate = delegate;
+        this.blockSize = blockSize;
+        this.blocks = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Long, byte[]>weigher((key, block) -> block.length)
+                .build();
+    }
+
+    @Override
+    public long size() throws IOException {
+        long result = size;
+        if (result < 0) {
+            result = delegate.size();
+            size = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        long size = size();
+        if (position >= size) {
+            return -1;
+        }
+        int read = 0;
+        while (dst.hasRemaining() && position < size) {
+            long block = position / blockSize;
+            byte[] data = blocks.getIfPresent(block);
+            if (data == null) {
+                long lastBlock = (Math.min(position + dst.remaining(), size) - 1) / blockSize;
+                data = load(block, lastBlock, size);
+            }
+            int offset = (int) (position - block * blockSize);
+            int length = Math.min(dst.remaining(), data.length - offset);
+            if (length <= 0) {
+                break;
+            }
+            dst.put(data, offset, length);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    /**
+     * Fetches the missing blocks from the first one up to the last one or the first cached one in one read.
+     *
+     * @return first block
+     */
+    @Nonnull
+    private byte[] load(long firstBlock, long lastBlock, long size) throws IOException {
+        long endBlock = firstBlock + 1;
+        while (endBlock <= lastBlock && blocks.getIfPresent(endBlock) == null) {
+            endBlock++;
+        }
+        long start = firstBlock * blockSize;
+        long end = Math.min(endBlock * blockSize, size);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        PakEntryCodecs.readFully(delegate, buffer, start);
+
+        byte[] first = null;
+        for (long block = firstBlock; block < endBlock; block++) {
+            int offset = (int) ((block - firstBlock) * blockSize);
+            byte[] data = new byte[(int) Math.min(blockSize, buffer.capacity() - offset)];
+            System.arraycopy(buffer.array(), offset, data, 0, data.length);
+            blocks.put(block, data);
+            if (first == null) {
+                first = data;
+            }
+        }
+        return first;
+    }
+
+    @Override
+    public void close() throws IOException {
+        blocks.invalidateAll();
+        delegate.close();
+    }
+}
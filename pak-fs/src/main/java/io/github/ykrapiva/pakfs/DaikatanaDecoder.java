@@ -0,0 +1,232 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming decoder of Daikatana compressed entries. The compressed data is a sequence of tokens, each starting
+ * with a control byte {@code x}:
+ * <ul>
+ * <li>{@code x < 64}: {@code x + 1} literal bytes follow</li>
+ * <li>{@code x < 128}: {@code x - 62} zero bytes</li>
+ * <li>{@code x < 192}: {@code x - 126} copies of the next byte</li>
+ * <li>{@code x < 254}: {@code x - 190} bytes copied from {@code next byte + 2} bytes back in the output</li>
+ * <li>{@code x == 255}: end of data</li>
+ * </ul>
+ * <p>
+ * Back references reach at most {@value #MAX_DISTANCE} bytes back, so the decoder state at a token boundary is
+ * small. A checkpoint of it is recorded every {@link #CHECKPOINT_INTERVAL} bytes of output, and seeking backwards
+ * resumes from the nearest checkpoint instead of the start of the entry.
+ */
+class DaikatanaDecoder implements PakEntryDecoder {
+    static final int CHECKPOINT_INTERVAL = 64 * 1024;
+    private static final int MAX_DISTANCE = 257;
+    private static final int HISTORY_SIZE = 512;
+    private static final int HISTORY_MASK = HISTORY_SIZE - 1;
+    private static final int INPUT_BUFFER_SIZE = 8192;
+
+    private static final int LITERAL = 0;
+    private static final int FILL = 1;
+    private static final int COPY = 2;
+
+    private final PakByteSource source;
+    private final PakFileEntry entry;
+    private final ByteBuffer input = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+    /**
+     * Last output bytes, indexed by output position modulo the history size.
+     */
+    private final byte[] history = new byte[HISTORY_SIZE];
+    /**
+     * Checkpoints in output order, the first one is the start of the entry.
+     */
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+
+    /**
+     * Position within the compressed data of the first byte after the input buffer content.
+     */
+    private long inputPosition;
+    /**
+     * Position within the entry content of the next output byte.
+     */
+    private long outputPosition;
+    private int tokenKind;
+    private int tokenLeft;
+    private byte fillByte;
+    private int copyDistance;
+
+    DaikatanaDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry entry) {
+        this.source = source;
+        this.entry = entry;
+        this.input.limit(0);
+        this.checkpoints.add(new Checkpoint(0, 0, new byte[0]));
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (position >= entry.getSize()) {
+            return -1;
+        }
+        if (position != outputPosition) {
+            seek(position);
+        }
+        return decode(dst);
+    }
+
+    private int decode(@Nonnull ByteBuffer dst) throws IOException {
+        int read = 0;
+        while (dst.hasRemaining() && outputPosition < entry.getSize()) {
+            if (tokenLeft == 0) {
+                if (outputPosition >= lastCheckpoint().outputPosition + CHECKPOINT_INTERVAL) {
+                    addCheckpoint();
+                }
+                nextToken();
+            }
+            int length = (int) Math.min(Math.min(tokenLeft, dst.remaining()), entry.getSize() - outputPosition);
+            for (int i = 0; i < length; i++) {
+                byte b = nextByte();
+                dst.put(b);
+                history[(int) outputPosition & HISTORY_MASK] = b;
+                outputPosition++;
+            }
+            tokenLeft -= length;
+            read += length;
+        }
+        return read;
+    }
+
+    private void seek(long position) throws IOException {
+        int low = 0;
+        int high = checkpoints.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (checkpoints.get(middle).outputPosition <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        Checkpoint checkpoint = checkpoints.get(low);
+        if (position < outputPosition || outputPosition < checkpoint.outputPosition) {
+            restore(checkpoint);
+        }
+
+        ByteBuffer discard = ByteBuffer.allocate(INPUT_BUFFER_SIZE);
+        while (outputPosition < position) {
+            discard.clear();
+            discard.limit((int) Math.min(discard.capacity(), position - outputPosition));
+            decode(discard);
+        }
+    }
+
+    private void addCheckpoint() {
+        int length = (int) Math.min(MAX_DISTANCE, outputPosition);
+        byte[] window = new byte[length];
+        for (int i = 0; i < length; i++) {
+            window[i] = history[(int) (outputPosition - length + i) & HISTORY_MASK];
+        }
+        checkpoints.add(new Checkpoint(inputPosition - input.remaining(), outputPosition, window));
+    }
+
+    private void restore(@Nonnull Checkpoint checkpoint) {
+        inputPosition = checkpoint.inputPosition;
+        input.clear().limit(0);
+        outputPosition = checkpoint.outputPosition;
+        byte[] window = checkpoint.history;
+        for (int i = 0; i < window.length; i++) {
+            history[(int) (outputPosition - window.length + i) & HISTORY_MASK] = window[i];
+        }
+        tokenLeft = 0;
+    }
+
+    @Nonnull
+    private Checkpoint lastCheckpoint() {
+        return checkpoints.get(checkpoints.size() - 1);
+    }
+
+    private void nextToken() throws IOException {
+        int x = nextInputByte();
+        if (x < 0 || x == 255) {
+            throw new FileFormatException("Compressed data of " + entry.getName() + " ends at " + outputPosition
+                    + " of " + entry.getSize() + " bytes");
+        }
+        if (x < 64) {
+            tokenKind = LITERAL;
+            tokenLeft = x + 1;
+        } else if (x < 128) {
+            tokenKind = FILL;
+            tokenLeft = x - 62;
+            fillByte = 0;
+        } else if (x < 192) {
+            tokenKind = FILL;
+            tokenLeft = x - 126;
+            fillByte = (byte) requireInputByte();
+        } else if (x < 254) {
+            tokenKind = COPY;
+            tokenLeft = x - 190;
+            copyDistance = requireInputByte() + 2;
+            if (copyDistance > outputPosition) {
+                throw new FileFormatException("Back reference before the start of " + entry.getName() + " at " + outputPosition);
+            }
+        } else {
+            throw new FileFormatException("Unknown token " + x + " in " + entry.getName() + " at " + outputPosition);
+        }
+    }
+
+    private byte nextByte() throws IOException {
+        switch (tokenKind) {
+            case LITERAL:
+                return (byte) requireInputByte();
+            case FILL:
+                return fillByte;
+            default:
+                return history[(int) (outputPosition - copyDistance) & HISTORY_MASK];
+        }
+    }
+
+    private int requireInputByte() throws IOException {
+        int b = nextInputByte();
+        if (b < 0) {
+            throw new FileFormatException("Compressed data of " + entry.getName() + " is truncated");
+        }
+        return b;
+    }
+
+    /**
+     * @return next byte of the compressed data or {@code -1} at its end
+     */
+    private int nextInputByte() throws IOException {
+        if (!input.hasRemaining()) {
+            long left = entry.getStoredSize() - inputPosition;
+            if (left <= 0) {
+                return -1;
+            }
+            input.clear();
+            input.limit((int) Math.min(input.capacity(), left));
+            int read = source.read(input, entry.getOffset() + inputPosition);
+            input.flip();
+            if (read <= 0) {
+                return -1;
+            }
+            inputPosition += read;
+        }
+        return input.get() & 0xff;
+    }
+
+    private static final class Checkpoint {
+        final long inputPosition;
+        final long outputPosition;
+        /**
+         * Output bytes preceding the checkpoint that back references may reach.
+         */
+        final byte[] history;
+
+        Checkpoint(long inputPosition, long outputPosition, byte[] history) {
+            this.inputPosition = inputPosition;
+            this.outputPosition = outputPosition;
+            this.history = history;
+        }
+    }
+}
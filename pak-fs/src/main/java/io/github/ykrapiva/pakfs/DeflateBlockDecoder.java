@@ -0,0 +1,107 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decoder of block compressed entries of extended archives. The entry data starts with the uncompressed block
+ * size, the number of blocks and the offsets of the blocks and of the end of the data, all unsigned 32-bit
+ * little endian numbers relative to the start of the entry data, followed by the Deflate compressed blocks.
+ * <p>
+ * Any position maps directly to its block, so seeking costs nothing and only the blocks actually read are
+ * inflated.
+ */
+class DeflateBlockDecoder implements PakEntryDecoder {
+    private final PakByteSource source;
+    private final PakFileEntry entry;
+    private final PakBlockCache cache;
+    private final Inflater inflater = new Inflater();
+    private int blockSize;
+    private long[] blockOffsets;
+
+    DeflateBlockDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry entry, @Nonnull PakBlockCache cache) {
+        this.source = source;
+        this.entry = entry;
+        this.cache = cache;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (position >= entry.getSize()) {
+            return -1;
+        }
+        if (blockOffsets == null) {
+            readBlockTable();
+        }
+
+        int read = 0;
+        while (dst.hasRemaining() && position < entry.getSize()) {
+            int block = (int) (position / blockSize);
+            int offset = (int) (position - (long) block * blockSize);
+            int length = cache.copy(entry, block, () -> inflate(block), offset, dst);
+            position += length;
+            read += length;
+        }
+        return read;
+    }
+
+    private void readBlockTable() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        PakEntryCodecs.readFully(source, header, entry.getOffset());
+        int size = header.getInt(0);
+        long count = Integer.toUnsignedLong(header.getInt(4));
+        if (size <= 0 || count != (entry.getSize() + size - 1) / size) {
+            throw new FileFormatException("Invalid block table of " + entry.getName());
+        }
+        if (count >= (entry.getStoredSize() - 8) / 4) {
+            throw new FileFormatException("Block table of " + entry.getName() + " exceeds its data: " + count + " blocks");
+        }
+
+        ByteBuffer table = ByteBuffer.allocate((int) (count + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+        PakEntryCodecs.readFully(source, table, entry.getOffset() + 8);
+        long[] offsets = new long[(int) count + 1];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Integer.toUnsignedLong(table.getInt(i * 4));
+            if (offsets[i] > entry.getStoredSize() || i > 0 && offsets[i] < offsets[i - 1]) {
+                throw new FileFormatException("Invalid block table of " + entry.getName());
+            }
+        }
+        blockSize = size;
+        blockOffsets = offsets;
+    }
+
+    @Nonnull
+    private byte[] inflate(int block) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate((int) (blockOffsets[block + 1] - blockOffsets[block]));
+        PakEntryCodecs.readFully(source, compressed, entry.getOffset() + blockOffsets[block]);
+
+        byte[] content = new byte[(int) Math.min(blockSize, entry.getSize() - (long) block * blockSize)];
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            int length = 0;
+            while (length < content.length && !inflater.finished()) {
+                int inflated = inflater.inflate(content, length, content.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != content.length) {
+                throw new FileFormatException("Block " + block + " of " + entry.getName() + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new FileFormatException("Block " + block + " of " + entry.getName() + " is corrupt: " + e.getMessage());
+        }
+        return content;
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+}
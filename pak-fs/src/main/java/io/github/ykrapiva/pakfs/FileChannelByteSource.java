@@ -0,0 +1,27 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+@RequiredArgsConstructor
+class FileChannelByteSource implements PakByteSource {
+    private final FileChannel fileChannel;
+
+    @Override
+    public long size() throws IOException {
+        return fileChannel.size();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return fileChannel.read(dst, position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
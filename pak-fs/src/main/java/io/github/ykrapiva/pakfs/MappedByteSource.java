@@ -0,0 +1,153 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memory mapped archive. A single {@link MappedByteBuffer} cannot exceed 2 GB, so the archive is mapped in
+ * fixed-size windows, each on first access. Reads spanning a window boundary are served from both windows.
+ * <p>
+ * Mapped windows are accounted with the {@link PakResourceManager}, which may drop them to stay within its
+ * limit, a dropped window is mapped again on the next access. The memory of a dropped window is only
+ * released once it is garbage collected.
+ */
+class MappedByteSource implements SliceableByteSource {
+    static final int DEFAULT_WINDOW_SHIFT = 30;
+
+    private final Path path;
+    /**
+     * Signature of the archive when the source was created. Windows are only mapped from the same file.
+     */
+    private final PakFileSignature signature;
+    private final long size;
+    private final int windowShift;
+    private final long windowMask;
+    private final AtomicReferenceArray<MappedByteBuffer> windows;
+    @Nullable
+    private final PakResourceManager resourceManager;
+    private volatile long lastAccessTime;
+
+    MappedByteSource(@Nonnull Path path, @Nullable PakResourceManager resourceManager) throws IOException {
+        this(path, DEFAULT_WINDOW_SHIFT, resourceManager);
+    }
+
+    /**
+     * @param windowShift     binary logarithm of the window size, at most 30
+     * @param resourceManager manager accounting the mapped windows, {@code null} for none
+     */
+    MappedByteSource(@Nonnull Path path, int windowShift, @Nullable PakResourceManager resourceManager) throws IOException {
+        if (windowShift < 0 || windowShift > 30) {
+            throw new IllegalArgumentException("Window shift out of range: " + windowShift);
+        }
+        this.signature = PakFileSignature.read(path);
+        this.size = signature.getSize();
+        this.path = path;
+        this.resourceManager = resourceManager;
+        this.windowShift = windowShift;
+        this.windowMask = (1L << windowShift) - 1;
+        this.windows = new AtomicReferenceArray<>((int) ((size + windowMask) >>> windowShift));
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (position >= size) {
+            return -1;
+        }
+
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            ByteBuffer window = window((int) (position >>> windowShift)).duplicate();
+            int windowPosition = (int) (position & windowMask);
+            int length = Math.min(dst.remaining(), window.limit() - windowPosition);
+
+            window.position(windowPosition).limit(windowPosition + length);
+            dst.put(window);
+
+            position += length;
+            total += length;
+        }
+        return total;
+    }
+
+    /**
+     * Returns a read-only view of the archive bytes without copying them.
+     *
+     * @return view or {@code null} if the range spans a window boundary
+     */
+    @Override
+    public ByteBuffer slice(long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw new IllegalArgumentException("Range out of bounds: " + position + "+" + length);
+        }
+        int windowIndex = (int) (position >>> windowShift);
+        int windowPosition = (int) (position & windowMask);
+        ByteBuffer window = window(windowIndex);
+        if (windowPosition + length > window.limit()) {
+            return null;
+        }
+        ByteBuffer slice = window.duplicate();
+        slice.position(windowPosition).limit(windowPosition + length);
+        return slice.slice();
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Drops all mapped windows. The memory is unmapped once the windows are garbage collected, reads in
+     * progress and slices keep using them until then.
+     *
+     * @return number of bytes of the dropped windows
+     */
+    long unmap() {
+        long bytes = 0;
+        for (int i = 0; i < windows.length(); i++) {
+            MappedByteBuffer window = windows.getAndSet(i, null);
+            if (window != null) {
+                bytes += window.capacity();
+            }
+        }
+        return bytes;
+    }
+
+    @Nonnull
+    private MappedByteBuffer window(int index) throws IOException {
+        lastAccessTime = System.nanoTime();
+        MappedByteBuffer window = windows.get(index);
+        if (window == null) {
+            long windowPosition = (long) index << windowShift;
+            long windowSize = Math.min(windowMask + 1, size - windowPosition);
+            try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (!signature.equals(PakFileSignature.read(path))) {
+                    throw new FileSystemException(path.toString(), null, "Archive has been modified");
+                }
+                window = fileChannel.map(FileChannel.MapMode.READ_ONLY, windowPosition, windowSize);
+            }
+            if (windows.compareAndSet(index, null, window)) {
+                if (resourceManager != null) {
+                    resourceManager.mapped(this, windowSize);
+                }
+            } else {
+                MappedByteBuffer current = windows.get(index);
+                if (current != null) {
+                    window = current;
+                }
+            }
+        }
+        return window;
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Entries of an archive in the order they were first opened, with the time since the file system was mounted.
+ * The profile recorded by one run is replayed by the next one to prefetch the entries before they are needed.
+ * <p>
+ * Entries are identified by the ordinal of their directory record, so the profile is small but only valid for
+ * an archive with the same size and number of records. The file is the {@code PAKP} magic, a version byte, the
+ * archive size, the record count and the number of accesses, followed by pairs of ordinal and milliseconds since
+ * the mount, all as unsigned variable length integers.
+ */
+final class PakAccessProfile {
+    private static final byte[] MAGIC = "PAKP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+
+    @Getter
+    private final long archiveSize;
+    @Getter
+    private final int recordCount;
+    private final int[] ordinals;
+    private final long[] times;
+
+    PakAccessProfile(long archiveSize, int recordCount, @Nonnull int[] ordinals, @Nonnull long[] times) {
+        if (ordinals.length != times.length) {
+            throw new IllegalArgumentException("Ordinals and times differ in length");
+        }
+        this.archiveSize = archiveSize;
+        this.recordCount = recordCount;
+        this.ordinals = ordinals;
+        this.times = times;
+    }
+
+    int size() {
+        return ordinals.length;
+    }
+
+    int ordinal(int access) {
+        return ordinals[access];
+    }
+
+    /**
+     * @return milliseconds between the mount and the access
+     */
+    long time(int access) {
+        return times[access];
+    }
+
+    /**
+     * Resolves the recorded entries in the index.
+     *
+     * @return entries in access order, or an empty list if the profile was recorded for a different archive
+     */
+    @Nonnull
+    List<PakFileEntry> entries(@Nonnull PakFileIndex index) {
+        List<PakFileEntry> records = index.records();
+        if (archiveSize != index.getSignature().getSize() || recordCount != records.size()) {
+            return Collections.emptyList();
+        }
+        List<PakFileEntry> entries = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            if (ordinal >= records.size()) {
+                return Collections.emptyList();
+            }
+            entries.add(records.get(ordinal));
+        }
+        return entries;
+    }
+
+    @Nonnull
+    static PakAccessProfile read(@Nonnull Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            int version = buffer.get() & 0xff;
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                throw new FileFormatException("Not an access profile: " + path);
+            }
+            long archiveSize = readVarLong(buffer);
+            int recordCount = (int) readVarLong(buffer);
+            int count = (int) readVarLong(buffer);
+            if (count < 0 || count > buffer.remaining()) {
+                throw new FileFormatException("Access profile is truncated: " + path);
+            }
+            int[] ordinals = new int[count];
+            long[] times = new long[count];
+            for (int i = 0; i < count; i++) {
+                ordinals[i] = (int) readVarLong(buffer);
+                times[i] = readVarLong(buffer);
+            }
+            return new PakAccessProfile(archiveSize, recordCount, ordinals, times);
+        } catch (BufferUnderflowException e) {
+            throw new FileFormatException("Access profile is truncated: " + path);
+        }
+    }
+
+    /**
+     * Writes the profile so that a concurrent reader never sees a partial profile.
+     */
+    void write(@Nonnull Path path) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + ordinals.length * 4);
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarLong(out, archiveSize);
+        writeVarLong(out, recordCount);
+        writeVarLong(out, ordinals.length);
+        for (int i = 0; i < ordinals.length; i++) {
+            writeVarLong(out, ordinals[i]);
+            writeVarLong(out, times[i]);
+        }
+        AtomicFiles.write(path, out.toByteArray());
+    }
+
+    private static void writeVarLong(@Nonnull ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(@Nonnull ByteBuffer buffer) throws FileFormatException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new FileFormatException("Malformed number in access profile");
+    }
+}
@@ -0,0 +1,76 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the first open of every entry for a {@link PakAccessProfile}. If the archive is reloaded while
+ * recording, the accesses recorded against the previous directory are dropped since their ordinals no longer
+ * apply.
+ */
+class PakAccessRecorder {
+    /**
+     * Upper bound of recorded accesses, which keeps the profile of a huge archive small.
+     */
+    static final int MAX_ACCESSES = 1 << 16;
+
+    private final long mountTime = System.nanoTime();
+    private PakFileIndex index;
+    private Map<PakFileEntry, Integer> ordinals;
+    private final BitSet seen = new BitSet();
+    private int[] accessOrdinals = new int[64];
+    private long[] accessTimes = new long[64];
+    private int count;
+
+    /**
+     * Records an open of the entry of the index unless the entry has been opened before.
+     */
+    synchronized void record(@Nonnull PakFileIndex index, @Nonnull PakFileEntry entry) {
+        if (this.index != index) {
+            reset(index);
+        }
+        Integer ordinal = ordinals.get(entry);
+        if (ordinal == null || seen.get(ordinal) || count == MAX_ACCESSES) {
+            return;
+        }
+        seen.set(ordinal);
+        if (count == accessOrdinals.length) {
+            accessOrdinals = Arrays.copyOf(accessOrdinals, count * 2);
+            accessTimes = Arrays.copyOf(accessTimes, count * 2);
+        }
+        accessOrdinals[count] = ordinal;
+        accessTimes[count] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - mountTime);
+        count++;
+    }
+
+    private void reset(@Nonnull PakFileIndex index) {
+        this.index = index;
+        List<PakFileEntry> records = index.records();
+        // The entry of a duplicated name is its first record, which comes first in the records
+        Map<PakFileEntry, Integer> ordinals = new IdentityHashMap<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            ordinals.putIfAbsent(records.get(i), i);
+        }
+        this.ordinals = ordinals;
+        seen.clear();
+        count = 0;
+    }
+
+    /**
+     * @return profile of the accesses recorded so far or {@code null} if nothing has been opened
+     */
+    @Nullable
+    synchronized PakAccessProfile toProfile() {
+        if (index == null) {
+            return null;
+        }
+        return new PakAccessProfile(index.getSignature().getSize(), index.records().size(),
+                Arrays.copyOf(accessOrdinals, count), Arrays.copyOf(accessTimes, count));
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reads the contents of many entries at once. The entries are sorted by offset and ranges closer than
+ * {@link #MAX_GAP} are merged into reads of up to {@link #MAX_READ_SIZE} bytes, whose bytes are then
+ * scattered into the entry contents, so that a level worth of small entries costs a few sequential reads.
+ * An entry stored as is shares the buffer of its read, an entry read alone is read straight into its own buffer.
+ */
+final class PakBatchReader {
+    /**
+     * Largest number of unneeded bytes between two ranges still worth reading over instead of seeking.
+     */
+    static final int MAX_GAP = 64 * 1024;
+    static final int MAX_READ_SIZE = 8 * 1024 * 1024;
+
+    private PakBatchReader() {
+    }
+
+    /**
+     * @return read-only contents of the entries in the order of the entries
+     */
+    @Nonnull
+    static ByteBuffer[] read(@Nonnull PakByteSource source, @Nonnull List<PakFileEntry> entries,
+                         @Nonnull PakBlockCache cache) throws IOException {
+        Integer[] order = new Integer[entries.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> entries.get(i).getOffset()));
+
+        ByteBuffer[] contents = new ByteBuffer[entries.size()];
+        List<Integer> group = new ArrayList<>();
+        long groupStart = 0;
+        long groupEnd = 0;
+        for (int i : order) {
+            PakFileEntry entry = entries.get(i);
+            long end = entry.getOffset() + entry.getStoredSize();
+            if (!group.isEmpty()
+                    && (entry.getOffset() - groupEnd > MAX_GAP || Math.max(end, groupEnd) - groupStart > MAX_READ_SIZE)) {
+                readGroup(source, entries, group, groupStart, groupEnd, contents, cache);
+                group.clear();
+            }
+            if (group.isEmpty()) {
+                groupStart = entry.getOffset();
+                groupEnd = end;
+            }
+            group.add(i);
+            groupEnd = Math.max(groupEnd, end);
+        }
+        if (!group.isEmpty()) {
+            readGroup(source, entries, group, groupStart, groupEnd, contents, cache);
+        }
+        return contents;
+    }
+
+    private static void readGroup(@Nonnull PakByteSource source, @Nonnull List<PakFileEntry> entries,
+                                  @Nonnull List<Integer> group, long start, long end, @Nonnull ByteBuffer[] contents,
+                                  @Nonnull PakBlockCache cache) throws IOException {
+        if (end - start > Integer.MAX_VALUE - 8) {
+            throw new IOException("Entry data is too large to be read at once: " + start + "+" + (end - start));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        PakEntryCodecs.readFully(source, buffer, start);
+        buffer.flip();
+        if (group.size() == 1 && entries.get(group.get(0)).getCodec() == PakEntryCodecs.STORED) {
+            contents[group.get(0)] = buffer.asReadOnlyBuffer();
+            return;
+        }
+        ByteBufferByteSource bufferSource = new ByteBufferByteSource(buffer, start);
+
+        for (int i : group) {
+            PakFileEntry entry = entries.get(i);
+            if (entry.getSize() > Integer.MAX_VALUE - 8) {
+                throw new IOException("Entry is too large to be read at once: " + entry.getName());
+            }
+            if (entry.getCodec() == PakEntryCodecs.STORED) {
+                contents[i] = bufferSource.slice(entry.getOffset(), (int) entry.getSize()).asReadOnlyBuffer();
+                continue;
+            }
+            ByteBuffer content = ByteBuffer.allocate((int) entry.getSize());
+            try (PakEntryDecoder decoder = entry.getCodec().newDecoder(bufferSource, entry, cache)) {
+                while (content.hasRemaining()) {
+                    if (decoder.read(content, content.position()) < 0) {
+                        throw new EOFException("Unexpected end of file reading entry " + entry.getName());
+                    }
+                }
+            }
+            content.flip();
+            contents[i] = content.asReadOnlyBuffer();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.ykrapiva.pakfs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Least recently used decompressed blocks of block compressed entries, shared by all channels of an archive.
+ * Blocks are keyed by the identity of their entry, so blocks of an entry replaced by a reload are never
+ * served for the new one and simply age out.
+ */
+class PakBlockCache {
+    static final PakBlockCache DISABLED = new PakBlockCache(0);
+
+    private final Cache<Key, byte[]> blocks;
+    private volatile boolean closed;
+
+    PakBlockCache(long maxBytes) {
+        this.blocks = maxBytes > 0
+                ? CacheBuilder.newBuilder().maximumWeight(maxBytes).<Key, byte[]>weigher((key, block) -> block.length).build()
+                : null;
+    }
+
+    /**
+     * Copies bytes of the cached block, or of the block decompressed and cached, into the buffer.
+     *
+     * @param offset offset of the first byte to copy within the block
+     * @return number of bytes copied, up to the end of the block
+     */
+    int copy(@Nonnull PakFileEntry entry, int block, @Nonnull Callable<byte[]> loader, int offset,
+             @Nonnull ByteBuffer dst) throws IOException {
+        byte[] content = closed ? call(loader) : get(entry, block, loader);
+        int length = Math.min(dst.remaining(), content.length - offset);
+        dst.put(content, offset, length);
+        return length;
+    }
+
+    /**
+     * Drops the cached blocks, later copies decompress their blocks without caching them.
+     */
+    void close() {
+        closed = true;
+        if (blocks != null) {
+            blocks.invalidateAll();
+        }
+    }
+
+    @Nonnull
+    private byte[] get(@Nonnull PakFileEntry entry, int block, @Nonnull Callable<byte[]> loader) throws IOException {
+        if (blocks == null) {
+            return call(loader);
+        }
+        try {
+            return blocks.get(new Key(entry, block), loader);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Nonnull
+    private static byte[] call(@Nonnull Callable<byte[]> loader) throws IOException {
+        try {
+            return loader.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Key {
+        private final PakFileEntry entry;
+        private final int block;
+
+        Key(PakFileEntry entry, int block) {
+            this.entry = entry;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return entry == key.entry && block == key.block;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(entry) + block;
+        }
+    }
+}
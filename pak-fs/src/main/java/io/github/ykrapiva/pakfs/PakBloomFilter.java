@@ -0,0 +1,170 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Register-blocked Bloom filter of entry names. All bits of a name live in one 64-bit word, so a query costs
+ * one memory access. Names are hashed with {@link String#hashCode()}, which strings cache, so repeated queries
+ * with the same string do not rehash it.
+ * <p>
+ * The filter can be kept in a sidecar file next to the archive, so that a later mount answers lookups of absent
+ * names without loading the index. The file holds the big-endian integers {@code magic, version}, the longs
+ * {@code archive size, archive modification time in milliseconds}, the word count and the words. A sidecar of
+ * a different archive is ignored.
+ */
+final class PakBloomFilter {
+    private static final int BITS_PER_NAME = 12;
+    private static final int BITS_PER_WORD = 64;
+    /**
+     * Number of bits set per name, each selected by 6 low bits of the hash. The word is selected by the
+     * remaining high bits.
+     */
+    private static final int HASH_FUNCTIONS = 7;
+    private static final int WORD_INDEX_SHIFT = HASH_FUNCTIONS * 6;
+    private static final int SIDECAR_MAGIC = 0x70616b66; // "pakf"
+    private static final int SIDECAR_VERSION = 1;
+    private static final int SIDECAR_HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+
+    private final long[] words;
+    private final int mask;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    PakBloomFilter(@Nonnull Collection<String> names) {
+        this(new ArrayList<>(names), PakExecutors.parallel());
+    }
+
+    /**
+     * @param names random access list of the names, whose bits are set on the pool if it is huge, see
+     *              {@link PakExecutors#forEach}
+     */
+    PakBloomFilter(@Nonnull List<String> names, @Nonnull ForkJoinPool pool) {
+        int wordCount = Integer.highestOneBit(Math.max(1, names.size() * BITS_PER_NAME / BITS_PER_WORD) * 2 - 1);
+        this.mask = wordCount - 1;
+
+        AtomicLongArray sharedWords = new AtomicLongArray(wordCount);
+        PakExecutors.forEach(names.size(), pool, i -> {
+            long hash = mix(names.get(i).hashCode());
+            int wordIndex = wordIndex(hash);
+            long bits = bits(hash);
+            long word = sharedWords.get(wordIndex);
+            while ((word & bits) != bits && !sharedWords.compareAndSet(wordIndex, word, word | bits)) {
+                word = sharedWords.get(wordIndex);
+            }
+        });
+        this.words = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = sharedWords.get(i);
+        }
+    }
+
+    private PakBloomFilter(@Nonnull long[] words) {
+        this.words = words;
+        this.mask = words.length - 1;
+    }
+
+    /**
+     * Reads a filter kept next to the archive.
+     *
+     * @return {@code null} if the sidecar does not exist or belongs to a different archive
+     */
+    @Nullable
+    static PakBloomFilter read(@Nonnull Path sidecar, @Nonnull PakFileSignature signature) throws IOException {
+        if (!Files.exists(sidecar)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(sidecar));
+        if (buffer.remaining() < SIDECAR_HEADER_SIZE
+                || buffer.getInt() != SIDECAR_MAGIC || buffer.getInt() != SIDECAR_VERSION
+                || buffer.getLong() != signature.getSize()
+                || buffer.getLong() != signature.getLastModifiedTime().toMillis()) {
+            return null;
+        }
+        int wordCount = buffer.getInt();
+        if (wordCount <= 0 || Integer.bitCount(wordCount) != 1 || buffer.remaining() != wordCount * 8L) {
+            throw new FileFormatException("Malformed name filter " + sidecar);
+        }
+        long[] words = new long[wordCount];
+        buffer.asLongBuffer().get(words);
+        return new PakBloomFilter(words);
+    }
+
+    void write(@Nonnull Path sidecar, @Nonnull PakFileSignature signature) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SIDECAR_HEADER_SIZE + words.length * 8);
+        buffer.putInt(SIDECAR_MAGIC)
+                .putInt(SIDECAR_VERSION)
+                .putLong(signature.getSize())
+                .putLong(signature.getLastModifiedTime().toMillis())
+                .putInt(words.length);
+        buffer.asLongBuffer().put(words);
+        AtomicFiles.write(sidecar, buffer.array());
+    }
+
+    /**
+     * @return {@code false} if the name is definitely absent, {@code true} if it may be present
+     */
+    boolean mightContain(@Nonnull String name) {
+        long hash = mix(name.hashCode());
+        long bits = bits(hash);
+        if ((words[wordIndex(hash)] & bits) == bits) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Records that a name for which {@link #mightContain(String)} returned {@code true} turned out to be absent.
+     */
+    void falsePositive() {
+        falsePositives.increment();
+    }
+
+    /**
+     * @return observed share of absent names that passed the filter, {@code NaN} if no absent name has been
+     * looked up yet
+     */
+    double falsePositiveRate() {
+        long fp = falsePositives.sum();
+        long negatives = fp + rejected.sum();
+        return negatives == 0 ? Double.NaN : (double) fp / negatives;
+    }
+
+    private int wordIndex(long hash) {
+        return (int) (hash >>> WORD_INDEX_SHIFT) & mask;
+    }
+
+    private static long bits(long hash) {
+        long bits = 0;
+        long h = hash;
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            bits |= 1L << (h & (BITS_PER_WORD - 1));
+            h >>>= 6;
+        }
+        return bits;
+    }
+
+    /**
+     * Spreads the 32-bit string hash over 64 bits (MurmurHash3 finalizer).
+     */
+    private static long mix(int hashCode) {
+        long h = hashCode;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
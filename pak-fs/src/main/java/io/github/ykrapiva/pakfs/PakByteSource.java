@@ -0,0 +1,35 @@
+package io.github.ykrapiva.pakfs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Positional reads of archive bytes. Archives that are not files of the default file system, such as archives
+ * within other archives, resources or objects of a remote store, are mounted with
+ * {@link PakFileSystemProvider#newFileSystem(String, PakByteSource, java.util.Map)} from an implementation of
+ * this interface, see {@link PakByteSources} for the common ones.
+ * <p>
+ * Implementations must allow concurrent reads and must not change the archive bytes while mounted.
+ */
+public interface PakByteSource extends Closeable {
+    /**
+     * @return size of the archive in bytes
+     */
+    long size() throws IOException;
+
+    /**
+     * Reads bytes starting at the given archive position into the buffer, like
+     * {@link java.nio.channels.FileChannel#read(ByteBuffer, long)}.
+     *
+     * @return number of bytes read, possibly zero, or {@code -1} if the position is at or beyond the end
+     */
+    int read(ByteBuffer dst, long position) throws IOException;
+
+    /**
+     * Releases the resources of the source, called when the file system mounted from it is closed.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Factories of common {@link PakByteSource}s. The sources own what they read, closing a source closes its
+ * channel or its cached source.
+ */
+public final class PakByteSources {
+    private PakByteSources() {
+    }
+
+    /**
+     * Reads a file channel, concurrent reads do not block each other.
+     */
+    @Nonnull
+    public static PakByteSource of(@Nonnull FileChannel channel) {
+        return new FileChannelByteSource(channel);
+    }
+
+    /**
+     * Reads any seekable channel, such as a channel of a file in a zip file system. Reads are serialized.
+     */
+    @Nonnull
+    public static PakByteSource of(@Nonnull SeekableByteChannel channel) {
+        if (channel instanceof FileChannel) {
+            return of((FileChannel) channel);
+        }
+        return new SeekableChannelByteSource(channel);
+    }
+
+    /**
+     * Reads the bytes of the buffer between its position and limit, which are not copied.
+     */
+    @Nonnull
+    public static PakByteSource of(@Nonnull ByteBuffer buffer) {
+        return new ByteBufferByteSource(buffer, 0);
+    }
+
+    /**
+     * Caches aligned blocks of the source in memory. Reads smaller than a block are turned into block reads
+     * and neighbouring missing blocks are fetched together, so a source with a high latency per read, like
+     * ranged reads of an object store, is read a few times rather than once per small read.
+     *
+     * @param blockSize number of bytes per block, the smallest unit read from the source
+     * @param maxBytes  maximum number of bytes of cached blocks
+     */
+    @Nonnull
+    public static PakByteSource cached(@Nonnull PakByteSource source, int blockSize, long maxBytes) {
+        return new CachingByteSource(source, blockSize, maxBytes);
+    }
+}
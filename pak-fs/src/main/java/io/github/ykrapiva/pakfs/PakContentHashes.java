@@ -0,0 +1,110 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Value;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content hashes of the entries of one index snapshot, computed on demand. Hashes are keyed by the data range
+ * and storage method of an entry, so entries sharing their data share the hash.
+ * <p>
+ * The hashes can be kept in a sidecar file next to the archive. Its first line is
+ * {@code pakfs-content-hashes 1 <archive size> <archive modification time in milliseconds>}, every following
+ * line is {@code <offset> <size> <stored size> <method> <hash>}. A sidecar of a different archive is ignored.
+ */
+final class PakContentHashes {
+    private static final String MAGIC = "pakfs-content-hashes";
+    private static final int VERSION = 1;
+
+    private final Map<Key, String> hashes = new ConcurrentHashMap<>();
+    /**
+     * Whether hashes have been added since the sidecar was read.
+     */
+    private volatile boolean modified;
+
+    @Nullable
+    String get(@Nonnull PakFileEntry entry) {
+        return hashes.get(Key.of(entry));
+    }
+
+    void put(@Nonnull PakFileEntry entry, @Nonnull String hash) {
+        if (hashes.put(Key.of(entry), hash) == null) {
+            modified = true;
+        }
+    }
+
+    boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Adds the hashes of the sidecar if it belongs to the archive.
+     *
+     * @return {@code false} if the sidecar does not exist or belongs to a different archive
+     */
+    boolean read(@Nonnull Path sidecar, @Nonnull PakFileSignature signature) throws IOException {
+        if (!Files.exists(sidecar)) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(sidecar, StandardCharsets.UTF_8)) {
+            if (!header(signature).equals(reader.readLine())) {
+                return false;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ");
+                if (fields.length != 5) {
+                    throw new FileFormatException("Malformed content hash line: " + line);
+                }
+                try {
+                    Key key = new Key(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                            PakEntryCodecs.forMethod(Integer.parseInt(fields[3])));
+                    hashes.putIfAbsent(key, fields[4]);
+                } catch (NumberFormatException e) {
+                    throw new FileFormatException("Malformed content hash line: " + line);
+                }
+            }
+            return true;
+        }
+    }
+
+    void write(@Nonnull Path sidecar, @Nonnull PakFileSignature signature) throws IOException {
+        StringBuilder text = new StringBuilder(header(signature)).append('\n');
+        for (Map.Entry<Key, String> hash : hashes.entrySet()) {
+            Key key = hash.getKey();
+            text.append(key.offset).append(' ')
+                    .append(key.size).append(' ')
+                    .append(key.storedSize).append(' ')
+                    .append(PakEntryCodecs.methodOf(key.codec)).append(' ')
+                    .append(hash.getValue()).append('\n');
+        }
+        AtomicFiles.write(sidecar, text.toString().getBytes(StandardCharsets.UTF_8));
+        modified = false;
+    }
+
+    @Nonnull
+    private static String header(@Nonnull PakFileSignature signature) {
+        return MAGIC + " " + VERSION + " " + signature.getSize() + " " + signature.getLastModifiedTime().toMillis();
+    }
+
+    @Value
+    private static class Key {
+        long offset;
+        long size;
+        long storedSize;
+        PakEntryCodec codec;
+
+        @Nonnull
+        static Key of(@Nonnull PakFileEntry entry) {
+            return new Key(entry.getOffset(), entry.getSize(), entry.getStoredSize(), entry.getCodec());
+        }
+    }
+}
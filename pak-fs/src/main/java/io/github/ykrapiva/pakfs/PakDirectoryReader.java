@@ -0,0 +1,247 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads the archive directory. Two record layouts share the {@code PACK} header:
+ * <ul>
+ * <li>Quake: 56 bytes of name, offset and size, 64 bytes per record</li>
+ * <li>Daikatana: 56 bytes of name, offset, uncompressed size, compressed size and a compression flag,
+ * 72 bytes per record</li>
+ * </ul>
+ * The layout is detected from the directory length. A directory that is a whole number of records in both
+ * layouts is read as Quake's unless that yields names or data ranges that cannot be right.
+ * <p>
+ * Extended archives written by {@link PakFileWriter} have the {@code PAKX} header and 72-byte records of
+ * name, offset, uncompressed size, stored size and storage method.
+ */
+final class PakDirectoryReader {
+    static final String IDENTIFIER = "PACK";
+    static final String EXTENDED_IDENTIFIER = "PAKX";
+    static final int HEADER_SIZE = 12;
+    static final int NAME_SIZE = 56;
+    static final int QUAKE_RECORD_SIZE = 64;
+    static final int DAIKATANA_RECORD_SIZE = 72;
+    static final int EXTENDED_RECORD_SIZE = 72;
+    /**
+     * Number of records above which a directory is decoded in parallel.
+     */
+    static final int PARALLEL_THRESHOLD = 16 * 1024;
+    /**
+     * Number of records decoded by one parallel task.
+     */
+    private static final int CHUNK_SIZE = 4 * 1024;
+
+    private PakDirectoryReader() {
+    }
+
+    @Nonnull
+    static List<PakFileEntry> readEntries(@Nonnull PakByteSource source) throws IOException {
+        ByteBuffer header = readHeader(source);
+        String id = new String(header.array(), 0, 4, StandardCharsets.US_ASCII);
+
+        long fileSize = source.size();
+        long directoryOffset = Integer.toUnsignedLong(header.getInt(4));
+        long directorySize = Integer.toUnsignedLong(header.getInt(8));
+        if (directoryOffset + directorySize > fileSize) {
+            throw new FileFormatException("File table exceeds the file: " + directoryOffset + "+" + directorySize);
+        }
+        if (directorySize > Integer.MAX_VALUE) {
+            throw new FileFormatException("File table is too large: " + directorySize);
+        }
+
+        ByteBuffer directory = readDirectory(source, directoryOffset, (int) directorySize);
+
+        if (EXTENDED_IDENTIFIER.equals(id)) {
+            return readExtendedEntries(directory);
+        }
+
+        boolean quake = directorySize % QUAKE_RECORD_SIZE == 0;
+        boolean daikatana = directorySize % DAIKATANA_RECORD_SIZE == 0;
+        if (daikatana && !quake) {
+            return readDaikatanaEntries(directory);
+        }
+        List<PakFileEntry> entries = readQuakeEntries(directory);
+        if (daikatana && !isValid(entries, fileSize)) {
+            List<PakFileEntry> daikatanaEntries = readDaikatanaEntries(directory);
+            if (isValid(daikatanaEntries, fileSize)) {
+                return daikatanaEntries;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return offset and size of the directory
+     */
+    @Nonnull
+    static long[] readDirectoryRange(@Nonnull PakByteSource source) throws IOException {
+        ByteBuffer header = readHeader(source);
+        return new long[]{Integer.toUnsignedLong(header.getInt(4)), Integer.toUnsignedLong(header.getInt(8))};
+    }
+
+    @Nonnull
+    private static ByteBuffer readHeader(@Nonnull PakByteSource source) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        PakEntryCodecs.readFully(source, header, 0);
+
+        String id = new String(header.array(), 0, 4, StandardCharsets.US_ASCII);
+        if (!IDENTIFIER.equals(id) && !EXTENDED_IDENTIFIER.equals(id)) {
+            throw new FileFormatException("Unexpected file identifier: " + id);
+        }
+        return header;
+    }
+
+    /**
+     * Reads the directory, or parses it in place if the archive is in memory.
+     */
+    @Nonnull
+    private static ByteBuffer readDirectory(@Nonnull PakByteSource source, long offset, int size) throws IOException {
+        ByteBuffer directory = null;
+        if (source instanceof SliceableByteSource) {
+            directory = ((SliceableByteSource) source).slice(offset, size);
+        }
+        if (directory == null) {
+            directory = ByteBuffer.allocate(size);
+            PakEntryCodecs.readFully(source, directory, offset);
+        }
+        return directory.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Nonnull
+    private static List<PakFileEntry> readQuakeEntries(@Nonnull ByteBuffer directory) throws FileFormatException {
+        return decode(directory, QUAKE_RECORD_SIZE, (name, record) -> {
+            long offset = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE));
+            long size = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE + 4));
+            return new PakFileEntry(name, offset, size);
+        });
+    }
+
+    @Nonnull
+    private static List<PakFileEntry> readDaikatanaEntries(@Nonnull ByteBuffer directory) throws FileFormatException {
+        return decode(directory, DAIKATANA_RECORD_SIZE, (name, record) -> {
+            long offset = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE));
+            long size = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE + 4));
+            long compressedSize = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE + 8));
+            boolean compressed = directory.getInt(record + NAME_SIZE + 12) != 0;
+            return compressed
+                    ? new PakFileEntry(name, offset, size, compressedSize, PakEntryCodecs.DAIKATANA)
+                    : new PakFileEntry(name, offset, size);
+        });
+    }
+
+    @Nonnull
+    private static List<PakFileEntry> readExtendedEntries(@Nonnull ByteBuffer directory) throws FileFormatException {
+        return decode(directory, EXTENDED_RECORD_SIZE, (name, record) -> {
+            long offset = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE));
+            long size = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE + 4));
+            long storedSize = Integer.toUnsignedLong(directory.getInt(record + NAME_SIZE + 8));
+            PakEntryCodec codec = PakEntryCodecs.forMethod(directory.getInt(record + NAME_SIZE + 12));
+            return new PakFileEntry(name, offset, size, storedSize, codec);
+        });
+    }
+
+    /**
+     * Decodes all records of the directory. Directories of more than {@value #PARALLEL_THRESHOLD} records are
+     * decoded in chunks on the {@link PakExecutors#parallel()} pool, unless it runs a single thread, every record
+     * into its own slot, so the result is the same as of a sequential decode.
+     */
+    @Nonnull
+    private static List<PakFileEntry> decode(@Nonnull ByteBuffer directory, int recordSize,
+                                             @Nonnull RecordDecoder decoder) throws FileFormatException {
+        PakFileEntry[] entries = new PakFileEntry[directory.capacity() / recordSize];
+        if (entries.length <= PARALLEL_THRESHOLD || PakExecutors.parallel().getParallelism() <= 1) {
+            decode(directory, recordSize, decoder, entries, 0, entries.length);
+        } else {
+            try {
+                PakExecutors.parallel().invoke(new DecodeTask(directory, recordSize, decoder, entries, 0, entries.length));
+            } catch (UncheckedIOException e) {
+                throw (FileFormatException) e.getCause();
+            }
+        }
+        return Arrays.asList(entries);
+    }
+
+    private static void decode(@Nonnull ByteBuffer directory, int recordSize, @Nonnull RecordDecoder decoder,
+                               @Nonnull PakFileEntry[] entries, int from, int to) throws FileFormatException {
+        for (int i = from; i < to; i++) {
+            int record = i * recordSize;
+            entries[i] = decoder.decode(readName(directory, record), record);
+        }
+    }
+
+    @Nonnull
+    private static String readName(@Nonnull ByteBuffer directory, int record) {
+        byte[] name = new byte[NAME_SIZE];
+        ByteBuffer src = directory.duplicate();
+        src.position(record);
+        src.get(name);
+        return new String(name, StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Tells whether all entries have printable names and data within the archive.
+     */
+    private static boolean isValid(@Nonnull List<PakFileEntry> entries, long fileSize) {
+        for (PakFileEntry entry : entries) {
+            String name = entry.getName();
+            if (name.isEmpty() || entry.getOffset() + entry.getStoredSize() > fileSize) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (Character.isISOControl(name.charAt(i)) || name.charAt(i) == '\uFFFD') {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private interface RecordDecoder {
+        @Nonnull
+        PakFileEntry decode(@Nonnull String name, int record) throws FileFormatException;
+    }
+
+    private static final class DecodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer directory;
+        private final int recordSize;
+        private final transient RecordDecoder decoder;
+        private final transient PakFileEntry[] entries;
+        private final int from;
+        private final int to;
+
+        DecodeTask(ByteBuffer directory, int recordSize, RecordDecoder decoder, PakFileEntry[] entries, int from, int to) {
+            this.directory = directory;
+            this.recordSize = recordSize;
+            this.decoder = decoder;
+            this.entries = entries;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                try {
+                    decode(directory, recordSize, decoder, entries, from, to);
+                } catch (FileFormatException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new DecodeTask(directory, recordSize, decoder, entries, from, middle),
+                    new DecodeTask(directory, recordSize, decoder, entries, middle, to));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Storage method of entry data within an archive.
+ *
+ * @see PakEntryCodecs
+ */
+interface PakEntryCodec {
+    /**
+     * @return name of the storage method
+     */
+    @Nonnull
+    String name();
+
+    /**
+     * Creates a decoder of the entry content stored in the archive.
+     *
+     * @param cache cache of decompressed blocks shared by the decoders of the archive
+     */
+    @Nonnull
+    PakEntryDecoder newDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry entry, @Nonnull PakBlockCache cache);
+}
@@ -0,0 +1,152 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Entry codecs known to the provider.
+ */
+final class PakEntryCodecs {
+    /**
+     * Entry data stored as is.
+     */
+    static final PakEntryCodec STORED = new PakEntryCodec() {
+        @Nonnull
+        @Override
+        public String name() {
+            return "stored";
+        }
+
+        @Nonnull
+        @Override
+        public PakEntryDecoder newDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry entry,
+                                          @Nonnull PakBlockCache cache) {
+            return new PakEntryDecoder() {
+                @Override
+                public int read(ByteBuffer dst, long position) throws IOException {
+                    long bytesLeft = entry.getSize() - position;
+                    if (bytesLeft <= 0) {
+                        return -1;
+                    }
+                    int limit = dst.limit();
+                    if (dst.remaining() > bytesLeft) {
+                        dst.limit(dst.position() + (int) bytesLeft);
+                    }
+                    try {
+                        int read = source.read(dst, entry.getOffset() + position);
+                        if (read < 0) {
+                            throw new EOFException("Archive ends within entry " + entry.getName());
+                        }
+                        return read;
+                    } finally {
+                        dst.limit(limit);
+                    }
+                }
+
+                /**
+                 * Copies the range from the archive in memory or mapped, or reads it with one positional read.
+                 */
+                @Override
+                public void readFully(ByteBuffer dst, long position) throws IOException {
+                    if (position + dst.remaining() > entry.getSize()) {
+                        throw new EOFException("Entry " + entry.getName() + " ends before " + (position + dst.remaining()));
+                    }
+                    PakByteSource unscheduled = source instanceof ScheduledByteSource
+                            ? ((ScheduledByteSource) source).getDelegate() : source;
+                    if (unscheduled instanceof SliceableByteSource) {
+                        ByteBuffer slice = ((SliceableByteSource) unscheduled).slice(entry.getOffset() + position, dst.remaining());
+                        if (slice != null) {
+                            dst.put(slice);
+                            return;
+                        }
+                    }
+                    PakEntryCodecs.readFully(source, dst, entry.getOffset() + position);
+                }
+            };
+        }
+    };
+
+    /**
+     * Run-length and back-reference compression of Daikatana archives.
+     */
+    static final PakEntryCodec DAIKATANA = new PakEntryCodec() {
+        @Nonnull
+        @Override
+        public String name() {
+            return "daikatana";
+        }
+
+        @Nonnull
+        @Override
+        public PakEntryDecoder newDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry entry,
+                                          @Nonnull PakBlockCache cache) {
+            return new DaikatanaDecoder(source, entry);
+        }
+    };
+
+    /**
+     * Deflate compressed blocks of extended archives, see {@link DeflateBlockDecoder}.
+     */
+    static final PakEntryCodec DEFLATE_BLOCKS = new PakEntryCodec() {
+        @Nonnull
+        @Override
+        public String name() {
+            return "deflate-blocks";
+        }
+
+        @Nonnull
+        @Override
+        public PakEntryDecoder newDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry entry,
+                                          @Nonnull PakBlockCache cache) {
+            return new DeflateBlockDecoder(source, entry, cache);
+        }
+    };
+
+    /**
+     * Storage methods of extended archive records, indexed by the method number.
+     */
+    private static final PakEntryCodec[] METHODS = {STORED, DAIKATANA, DEFLATE_BLOCKS};
+
+    private PakEntryCodecs() {
+    }
+
+    /**
+     * @return codec of the storage method number of an extended archive record
+     * @throws FileFormatException if the method is unknown
+     */
+    @Nonnull
+    static PakEntryCodec forMethod(int method) throws FileFormatException {
+        if (method < 0 || method >= METHODS.length) {
+            throw new FileFormatException("Unknown storage method: " + method);
+        }
+        return METHODS[method];
+    }
+
+    /**
+     * @return storage method number of the codec in extended archive records
+     */
+    static int methodOf(@Nonnull PakEntryCodec codec) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i] == codec) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown codec: " + codec.name());
+    }
+
+
+    /**
+     * Reads exactly the remaining bytes of the buffer.
+     */
+    static void readFully(@Nonnull PakByteSource source, @Nonnull ByteBuffer dst, long position) throws java.io.IOException {
+        while (dst.hasRemaining()) {
+            int read = source.read(dst, position);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of archive at " + position);
+            }
+            position += read;
+        }
+    }
+}
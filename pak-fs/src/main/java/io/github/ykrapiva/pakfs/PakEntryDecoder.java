@@ -0,0 +1,42 @@
+package io.github.ykrapiva.pakfs;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the content of one entry. Decoders of compressed entries keep decompression state between calls, so
+ * a decoder must not be used by several threads at once.
+ */
+interface PakEntryDecoder extends Closeable {
+    /**
+     * Reads content bytes starting at the given position within the entry content.
+     *
+     * @return number of bytes read, or {@code -1} if the position is at or beyond the end of the content
+     */
+    int read(ByteBuffer dst, long position) throws IOException;
+
+    /**
+     * Reads content bytes starting at the given position until the buffer is full, with as few reads as the
+     * storage method allows.
+     *
+     * @throws java.io.EOFException if the content ends before
+     */
+    default void readFully(ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            int read = read(dst, position);
+            if (read < 0) {
+                throw new EOFException("Entry ends at " + position);
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Releases resources held by the decoder.
+     */
+    @Override
+    default void close() {
+    }
+}
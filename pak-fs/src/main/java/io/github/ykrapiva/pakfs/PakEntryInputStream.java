@@ -0,0 +1,180 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Input stream over an entry channel. Reads go straight into the caller's array, without the intermediate
+ * buffer of {@link java.nio.channels.Channels#newInputStream}, and the entry size makes {@link #available()}
+ * exact and lets {@link #readAllBytes()} allocate the result once.
+ * <p>
+ * {@code readAllBytes}, {@code readNBytes} and {@code transferTo} override the methods added to
+ * {@link InputStream} in Java 9 and later, and are plain methods on Java 8.
+ */
+class PakEntryInputStream extends InputStream {
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    private final PakFileEntryChannel channel;
+    private final long size;
+    /**
+     * Buffer of {@link #read()}.
+     */
+    private final byte[] single = new byte[1];
+    private long position;
+    private long mark;
+
+    PakEntryInputStream(@Nonnull PakFileEntryChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) > 0 ? single[0] & 0xff : -1;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b);
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= size) {
+            return -1;
+        }
+        int read = read(ByteBuffer.wrap(b, off, len));
+        return read > 0 ? read : -1;
+    }
+
+    /**
+     * Reads until the buffer is full or the entry ends.
+     *
+     * @return number of bytes read
+     */
+    private int read(@Nonnull ByteBuffer buffer) throws IOException {
+        int start = buffer.position();
+        channel.position(position);
+        while (buffer.hasRemaining() && position < size) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                throw new EOFException("Entry ends at " + position + " of " + size + " bytes");
+            }
+            position += read;
+        }
+        return buffer.position() - start;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ensureOpen();
+        long skipped = Math.max(0, Math.min(n, size - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return (int) Math.min(Integer.MAX_VALUE, size - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Remembers the position. {@link InputStream#mark(int)} cannot throw, so a closed stream is reported by
+     * {@link #reset()}.
+     */
+    @Override
+    public synchronized void mark(int readLimit) {
+        mark = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        ensureOpen();
+        position = mark;
+    }
+
+    /**
+     * Reads the rest of the entry into an array of exactly its size.
+     */
+    @Nonnull
+    public byte[] readAllBytes() throws IOException {
+        long remaining = size - position;
+        if (remaining > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Entry is too large: " + size);
+        }
+        return readNBytes((int) remaining);
+    }
+
+    /**
+     * Reads up to {@code len} bytes into an array of exactly the number of bytes read. A stored entry is read
+     * with one positional read, or copied from the archive in memory or mapped, compressed entries are decoded
+     * chunk by chunk.
+     */
+    @Nonnull
+    public byte[] readNBytes(int len) throws IOException {
+        if (len < 0) {
+            throw new IllegalArgumentException("len < 0");
+        }
+        ensureOpen();
+        byte[] bytes = new byte[(int) Math.min(len, size - Math.min(position, size))];
+        channel.position(position).readFully(ByteBuffer.wrap(bytes));
+        position += bytes.length;
+        return bytes;
+    }
+
+    /**
+     * Reads until {@code len} bytes are read or the entry ends.
+     *
+     * @return number of bytes read
+     */
+    public int readNBytes(@Nonnull byte[] b, int off, int len) throws IOException {
+        Objects.requireNonNull(b);
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        return read(ByteBuffer.wrap(b, off, len));
+    }
+
+    /**
+     * Writes the rest of the entry to the output stream.
+     *
+     * @return number of bytes transferred
+     */
+    public long transferTo(@Nonnull OutputStream out) throws IOException {
+        Objects.requireNonNull(out);
+        ensureOpen();
+        byte[] buffer = new byte[(int) Math.max(1, Math.min(TRANSFER_BUFFER_SIZE, size - Math.min(position, size)))];
+        long transferred = 0;
+        int read;
+        while ((read = read(ByteBuffer.wrap(buffer))) > 0) {
+            out.write(buffer, 0, read);
+            transferred += read;
+        }
+        return transferred;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (!channel.isOpen()) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Daemon executors shared by all archives for work kept off the caller's thread.
+ */
+final class PakExecutors {
+    private PakExecutors() {
+    }
+
+    /**
+     * @return scheduler running archive change checks and index reloads
+     */
+    @Nonnull
+    static ScheduledExecutorService scheduler() {
+        return SchedulerHolder.SCHEDULER;
+    }
+
+    /**
+     * @return executor for blocking background work such as index preloading
+     */
+    @Nonnull
+    static ExecutorService background() {
+        return BackgroundHolder.BACKGROUND;
+    }
+
+    /**
+     * @return pool for splitting CPU bound work such as decoding and indexing huge directories
+     */
+    @Nonnull
+    static ForkJoinPool parallel() {
+        return ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Runs the action for every index from {@code 0} to {@code size}. More than
+     * {@link PakDirectoryReader#PARALLEL_THRESHOLD} indices are split into chunks run on the pool, unless it runs
+     * a single thread. The caller sees everything the action has written once this returns.
+     */
+    static void forEach(int size, @Nonnull ForkJoinPool pool, @Nonnull IntConsumer action) {
+        if (!isParallel(size, pool)) {
+            for (int i = 0; i < size; i++) {
+                action.accept(i);
+            }
+        } else {
+            pool.invoke(new ChunkTask(action, 0, size));
+        }
+    }
+
+    /**
+     * @return whether {@link #forEach} runs so many indices on the pool
+     */
+    static boolean isParallel(int size, @Nonnull ForkJoinPool pool) {
+        return size > PakDirectoryReader.PARALLEL_THRESHOLD && pool.getParallelism() > 1;
+    }
+
+    @Nonnull
+    static ThreadFactory daemonThreadFactory(@Nonnull String namePrefix) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Runs the action for the indices {@code from} to {@code to}, split in halves down to {@link #CHUNK_SIZE}.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private static final int CHUNK_SIZE = 4 * 1024;
+
+        private final transient IntConsumer action;
+        private final int from;
+        private final int to;
+
+        ChunkTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(action, from, middle), new ChunkTask(action, middle, to));
+        }
+    }
+
+    private static final class BackgroundHolder {
+        static final ExecutorService BACKGROUND = PakThreads.newBlockingExecutor("pak-fs-background");
+    }
+
+    private static final class SchedulerHolder {
+        static final ScheduledExecutorService SCHEDULER =
+                Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("pak-fs-scheduler"));
+    }
+}
@@ -0,0 +1,718 @@
+package io.github.ykrapiva.pakfs;
+
+import com.google.common.io.BaseEncoding;
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Archive shared by the file systems that mount it, either a file of the default file system or a
+ * {@link PakByteSource} mounted on its own.
+ */
+class PakFile {
+    private static final int CONTENT_HASH_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<MessageDigest> CONTENT_DIGEST = ThreadLocal.withInitial(PakFile::newContentDigest);
+    private static final ThreadLocal<ByteBuffer> CONTENT_HASH_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(CONTENT_HASH_BUFFER_SIZE));
+
+    /**
+     * Archive file, {@code null} for an archive mounted from a source.
+     */
+    @Getter
+    @Nullable
+    private final Path path;
+    /**
+     * Path of the archive file or the name the source was mounted with.
+     */
+    @Getter
+    private final String name;
+    /**
+     * Source the archive was mounted from, {@code null} for an archive file.
+     */
+    @Nullable
+    private final PakByteSource externalSource;
+    private final PakFileSystemOptions options;
+    private final PakResourceManager resourceManager;
+    private final PakIoScheduler ioScheduler;
+    private final AtomicInteger refCount = new AtomicInteger();
+    /**
+     * Current index snapshot. Readers use whatever snapshot they got for the whole operation, reloads
+     * publish a complete new snapshot.
+     */
+    private final AtomicReference<PakFileIndex> index = new AtomicReference<>();
+    /**
+     * Initial load of the index, shared by all threads that need the index before it is published.
+     */
+    private final AtomicReference<CompletableFuture<PakFileIndex>> initialLoad = new AtomicReference<>();
+    private volatile long nextCheckTime = System.nanoTime();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final Set<PakWatchKey> watchKeys = ConcurrentHashMap.newKeySet();
+    private ScheduledFuture<?> watchTask;
+    /**
+     * Warm-ups and profile replays still running, cancelled when the archive is released.
+     */
+    private final Set<CompletableFuture<?>> backgroundTasks = ConcurrentHashMap.newKeySet();
+    /**
+     * Mapping of the archive file the current index has been read from, created on first use.
+     */
+    private final AtomicReference<MappedByteSource> mappedSource = new AtomicReference<>();
+    /**
+     * Channel shared by all reads of the current index, created on first use.
+     */
+    private final AtomicReference<SharedFileChannelSource> channelSource = new AtomicReference<>();
+    /**
+     * Name filter read from the sidecar, empty if there is none, {@code null} until read.
+     */
+    private final AtomicReference<Optional<PakBloomFilter>> sidecarNameFilter = new AtomicReference<>();
+    @Getter(lazy = true)
+    private final PakBlockCache blockCache = new PakBlockCache(options.getBlockCacheSize());
+
+    PakFile(@Nonnull Path path, @Nonnull PakFileSystemOptions options, @Nonnull PakResourceManager resourceManager,
+            @Nonnull PakIoScheduler ioScheduler) {
+        this.path = path;
+        this.name = path.toString();
+        this.externalSource = null;
+        this.options = options;
+        this.resourceManager = resourceManager;
+        this.ioScheduler = ioScheduler;
+    }
+
+    /**
+     * Archive read from the source, which does not change and is never reloaded.
+     */
+    PakFile(@Nonnull String name, @Nonnull PakByteSource source, @Nonnull PakFileSystemOptions options,
+            @Nonnull PakResourceManager resourceManager, @Nonnull PakIoScheduler ioScheduler) {
+        this.path = null;
+        this.name = name;
+        this.externalSource = source;
+        this.options = options;
+        this.resourceManager = resourceManager;
+        this.ioScheduler = ioScheduler;
+    }
+
+    /**
+     * Registers one more file system sharing this archive.
+     *
+     * @return {@code false} if the archive has already been released and must not be used anymore
+     */
+    boolean retain() {
+        while (true) {
+            int count = refCount.get();
+            if (count < 0) {
+                return false;
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Drops one reference to this archive. The last reference releases the index.
+     *
+     * @return {@code true} if this was the last reference
+     */
+    boolean release() {
+        if (refCount.decrementAndGet() == 0 && refCount.compareAndSet(0, -1)) {
+            writeContentHashes(index.getAndSet(null));
+            initialLoad.set(null);
+            MappedByteSource mapped = mappedSource.getAndSet(null);
+            if (mapped != null) {
+                resourceManager.unmap(mapped);
+            }
+            retireChannelSource();
+            getBlockCache().close();
+            for (PakWatchKey watchKey : watchKeys) {
+                watchKey.cancel();
+            }
+            for (CompletableFuture<?> task : backgroundTasks) {
+                task.cancel(false);
+            }
+            if (externalSource != null) {
+                closeQuietly(externalSource);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the current index snapshot. If the reload interval has passed, a check whether the archive
+     * has changed is scheduled in the background, the caller keeps using the current snapshot meanwhile.
+     */
+    @Nonnull
+    PakFileIndex getIndex() throws IOException {
+        PakFileIndex current = index.get();
+        if (current == null) {
+            current = awaitIndex(loadIndexOnce(null));
+        } else if (isReloadable() && System.nanoTime() - nextCheckTime >= 0) {
+            scheduleReload();
+        }
+        return current;
+    }
+
+    /**
+     * @return current index snapshot or {@code null} if it has not been loaded yet
+     */
+    @Nullable
+    PakFileIndex peekIndex() {
+        return index.get();
+    }
+
+    /**
+     * Starts loading the index in the background unless it is already loaded or being loaded.
+     *
+     * @return future completed once the index is available
+     */
+    @Nonnull
+    CompletableFuture<PakFileIndex> preloadIndex() {
+        PakFileIndex current = index.get();
+        if (current != null) {
+            return CompletableFuture.completedFuture(current);
+        }
+        return loadIndexOnce(PakExecutors.background());
+    }
+
+    /**
+     * Loads the index at most once at a time without holding any monitor, so that threads waiting for the
+     * index, virtual threads included, park instead of blocking their carrier. A failed load is forgotten, the
+     * next caller retries it.
+     *
+     * @param executor executor to load the index with, {@code null} to load it in the calling thread
+     */
+    @Nonnull
+    private CompletableFuture<PakFileIndex> loadIndexOnce(@Nullable Executor executor) {
+        CompletableFuture<PakFileIndex> future = initialLoad.get();
+        if (future != null) {
+            return future;
+        }
+
+        CompletableFuture<PakFileIndex> newFuture = new CompletableFuture<>();
+        if (!initialLoad.compareAndSet(null, newFuture)) {
+            return initialLoad.get();
+        }
+
+        Runnable load = () -> {
+            try {
+                PakFileIndex loadedIndex = loadIndex();
+                index.compareAndSet(null, loadedIndex);
+                newFuture.complete(loadedIndex);
+            } catch (Throwable e) {
+                initialLoad.compareAndSet(newFuture, null);
+                newFuture.completeExceptionally(e);
+            }
+        };
+
+        if (executor == null) {
+            load.run();
+        } else {
+            try {
+                executor.execute(load);
+            } catch (RejectedExecutionException e) {
+                load.run();
+            }
+        }
+        return newFuture;
+    }
+
+    @Nonnull
+    private static PakFileIndex awaitIndex(@Nonnull CompletableFuture<PakFileIndex> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private boolean isReloadable() {
+        return path != null && options.getReloadIntervalNanos() > 0;
+    }
+
+    private void scheduleReload() {
+        nextCheckTime = System.nanoTime() + options.getReloadIntervalNanos();
+        if (reloading.compareAndSet(false, true)) {
+            try {
+                PakExecutors.scheduler().execute(() -> {
+                    try {
+                        reloadIfChanged();
+                    } finally {
+                        reloading.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                reloading.set(false);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index if the archive file has changed since the current snapshot was loaded, and notifies
+     * registered watch keys about the entries that have been created, modified or deleted.
+     */
+    void reloadIfChanged() {
+        PakFileIndex current = index.get();
+        if (current == null || path == null) {
+            return;
+        }
+
+        PakFileIndex newIndex;
+        try {
+            if (PakFileSignature.read(path).equals(current.getSignature())) {
+                return;
+            }
+            newIndex = loadIndex();
+        } catch (IOException e) {
+            // Probably caught in the middle of the replacement, retry on the next check
+            return;
+        }
+
+        if (index.compareAndSet(current, newIndex)) {
+            writeContentHashes(current);
+            // Channels opened before keep their source, the resource manager drops an unused mapping eventually
+            mappedSource.set(null);
+            retireChannelSource();
+            getBlockCache().close();
+            for (PakWatchKey watchKey : watchKeys) {
+                current.diff(newIndex, watchKey::signalEvent);
+            }
+        }
+    }
+
+    void register(@Nonnull PakWatchKey watchKey) {
+        synchronized (watchKeys) {
+            watchKeys.add(watchKey);
+            if (watchTask == null && isReloadable()) {
+                watchTask = PakExecutors.scheduler().scheduleWithFixedDelay(
+                        this::reloadIfChanged, options.getReloadIntervalNanos(), options.getReloadIntervalNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    void unregister(@Nonnull PakWatchKey watchKey) {
+        synchronized (watchKeys) {
+            watchKeys.remove(watchKey);
+            if (watchKeys.isEmpty() && watchTask != null) {
+                watchTask.cancel(false);
+                watchTask = null;
+            }
+        }
+    }
+
+    @Nonnull
+    private PakFileIndex loadIndex() throws IOException {
+        if (externalSource != null) {
+            PakFileSignature signature = new PakFileSignature(externalSource.size(), null, null);
+            // An archive in memory has its directory parsed in place, without reads to schedule
+            PakByteSource source = externalSource instanceof SliceableByteSource
+                    ? externalSource : schedule(externalSource, PakIoPriority.INTERACTIVE);
+            return new PakFileIndex(PakDirectoryReader.readEntries(source), signature);
+        }
+        PakFileSignature signature = PakFileSignature.read(path);
+        PakFileIndex newIndex;
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PakByteSource source = schedule(new FileChannelByteSource(fileChannel), PakIoPriority.INTERACTIVE);
+            newIndex = new PakFileIndex(PakDirectoryReader.readEntries(source), signature);
+        }
+        if (options.isContentHashSidecar()) {
+            try {
+                newIndex.getContentHashes().read(sidecarPath(path), signature);
+            } catch (IOException e) {
+                // The hashes are computed again and the sidecar is replaced
+            }
+        }
+        if (options.isNameFilterSidecar()) {
+            writeNameFilter(newIndex);
+        }
+        return newIndex;
+    }
+
+    @Nonnull
+    static Path sidecarPath(@Nonnull Path path) {
+        return path.resolveSibling(path.getFileName() + ".hashes");
+    }
+
+    @Nonnull
+    static Path nameFilterPath(@Nonnull Path path) {
+        return path.resolveSibling(path.getFileName() + ".names");
+    }
+
+    /**
+     * Returns the name filter kept next to the archive, so that lookups of absent entries are answered before
+     * the index is loaded. The sidecar is read once.
+     *
+     * @return {@code null} if the index has been loaded, the sidecar is disabled, missing, or belongs to a
+     * different archive
+     */
+    @Nullable
+    PakBloomFilter peekSidecarNameFilter() {
+        if (path == null || !options.isNameFilterSidecar() || index.get() != null) {
+            return null;
+        }
+        Optional<PakBloomFilter> filter = sidecarNameFilter.get();
+        if (filter == null) {
+            try {
+                filter = Optional.ofNullable(PakBloomFilter.read(nameFilterPath(path), PakFileSignature.read(path)));
+            } catch (IOException e) {
+                // The index answers the lookup instead
+                filter = Optional.empty();
+            }
+            sidecarNameFilter.compareAndSet(null, filter);
+        }
+        return filter.orElse(null);
+    }
+
+    /**
+     * Writes the name filter of a newly loaded index next to the archive unless the sidecar is up to date.
+     */
+    private void writeNameFilter(@Nonnull PakFileIndex newIndex) {
+        Path filterPath = nameFilterPath(path);
+        try {
+            if (PakBloomFilter.read(filterPath, newIndex.getSignature()) != null) {
+                return;
+            }
+        } catch (IOException e) {
+            // Replaced below
+        }
+        try {
+            newIndex.getBloomFilter().write(filterPath, newIndex.getSignature());
+        } catch (IOException e) {
+            // The sidecar is a cache, the next mount writes it again
+        }
+    }
+
+    /**
+     * Writes the content hashes computed for the index snapshot to the sidecar, if enabled.
+     */
+    private void writeContentHashes(@Nullable PakFileIndex fileIndex) {
+        if (fileIndex == null || path == null || !options.isContentHashSidecar()
+                || !fileIndex.getContentHashes().isModified()) {
+            return;
+        }
+        try {
+            fileIndex.getContentHashes().write(sidecarPath(path), fileIndex.getSignature());
+        } catch (IOException e) {
+            // The sidecar is a cache, the hashes are computed again by the next mount
+        }
+    }
+
+    @Nonnull
+    PakFileEntryChannel newReadOnlyChannel(@Nonnull PakFileEntry fileEntry,
+                                           @Nonnull Consumer<? super PakFileEntryChannel> closeListener) throws IOException {
+        if (externalSource != null) {
+            return new PakFileEntryChannel(newDecoder(schedule(externalSource, PakIoPriority.INTERACTIVE), fileEntry),
+                    fileEntry, closeListener);
+        }
+        if (options.isMapped()) {
+            return new PakFileEntryChannel(newDecoder(schedule(getMappedSource(), PakIoPriority.INTERACTIVE), fileEntry),
+                    fileEntry, closeListener);
+        }
+        SharedFileChannelSource retainedSource = retainChannelSource();
+        PakEntryDecoder decoder = newDecoder(schedule(retainedSource, PakIoPriority.INTERACTIVE), fileEntry);
+        return new PakFileEntryChannel(decoder, fileEntry, channel -> {
+            retainedSource.release();
+            closeListener.accept(channel);
+        });
+    }
+
+    @Nonnull
+    private PakEntryDecoder newDecoder(@Nonnull PakByteSource source, @Nonnull PakFileEntry fileEntry) {
+        return fileEntry.getCodec().newDecoder(source, fileEntry, getBlockCache());
+    }
+
+    /**
+     * Runs the reader on the archive bytes of the current index, its reads going through the I/O scheduler. A
+     * shared file channel is retained until the reader returns, so that neither a reload nor the release of the
+     * archive closes it underneath.
+     *
+     * @param priority priority of the reads
+     */
+    private <T, E extends Exception> T read(@Nonnull PakIoPriority priority,
+                                            @Nonnull SourceReader<T, E> reader) throws IOException, E {
+        if (externalSource != null) {
+            return reader.read(schedule(externalSource, priority));
+        }
+        if (options.isMapped()) {
+            return reader.read(schedule(getMappedSource(), priority));
+        }
+        SharedFileChannelSource source = retainChannelSource();
+        try {
+            return reader.read(schedule(source, priority));
+        } finally {
+            source.release();
+        }
+    }
+
+    @Nonnull
+    private PakByteSource schedule(@Nonnull PakByteSource source, @Nonnull PakIoPriority priority) {
+        return new ScheduledByteSource(source, ioScheduler, priority);
+    }
+
+    @Nonnull
+    private MappedByteSource getMappedSource() throws IOException {
+        while (true) {
+            MappedByteSource source = mappedSource.get();
+            if (source != null) {
+                return source;
+            }
+            ensureNotReleased();
+            source = new MappedByteSource(path, resourceManager);
+            if (mappedSource.compareAndSet(null, source)) {
+                if (refCount.get() < 0 && mappedSource.compareAndSet(source, null)) {
+                    // Released meanwhile, the release has not seen this source
+                    resourceManager.unmap(source);
+                    throw new ClosedChannelException();
+                }
+                return source;
+            }
+        }
+    }
+
+    /**
+     * Returns the channel source of the current index, retained by the caller, who must release it.
+     */
+    @Nonnull
+    private SharedFileChannelSource retainChannelSource() throws IOException {
+        SharedFileChannelSource source;
+        do {
+            source = getChannelSource();
+        } while (!source.retain());
+        return source;
+    }
+
+    @Nonnull
+    private SharedFileChannelSource getChannelSource() throws IOException {
+        while (true) {
+            SharedFileChannelSource source = channelSource.get();
+            if (source != null) {
+                return source;
+            }
+            ensureNotReleased();
+            source = new SharedFileChannelSource(path, getIndex().getSignature(), resourceManager);
+            if (channelSource.compareAndSet(null, source)) {
+                if (refCount.get() < 0 && channelSource.compareAndSet(source, null)) {
+                    // Released meanwhile, the release has not seen this source
+                    source.retire();
+                    throw new ClosedChannelException();
+                }
+                return source;
+            }
+        }
+    }
+
+    /**
+     * Fails reads started in the background before the archive was released, instead of loading it again.
+     */
+    private void ensureNotReleased() throws ClosedChannelException {
+        if (refCount.get() < 0) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private void retireChannelSource() {
+        SharedFileChannelSource source = channelSource.getAndSet(null);
+        if (source != null) {
+            source.retire();
+        }
+    }
+
+    private static void closeQuietly(@Nonnull PakByteSource source) {
+        try {
+            source.close();
+        } catch (IOException e) {
+            // Nothing is read from it anymore
+        }
+    }
+
+    /**
+     * Reads the contents of the entries with as few reads as possible, see {@link PakBatchReader}.
+     *
+     * @return read-only contents in the order of the entries
+     */
+    @Nonnull
+    ByteBuffer[] readContents(@Nonnull List<PakFileEntry> fileEntries) throws IOException {
+        return read(PakIoPriority.INTERACTIVE, source -> PakBatchReader.read(source, fileEntries, getBlockCache()));
+    }
+
+    /**
+     * Returns the content of an entry stored as is in an archive held in memory or mapped, without copying it.
+     *
+     * @return read-only view of the content or {@code null} if the content has to be read
+     */
+    @Nullable
+    ByteBuffer slice(@Nonnull PakFileEntry fileEntry) throws IOException {
+        PakByteSource source = externalSource != null ? externalSource : options.isMapped() ? getMappedSource() : null;
+        if (fileEntry.getCodec() != PakEntryCodecs.STORED || fileEntry.getSize() > Integer.MAX_VALUE
+                || !(source instanceof SliceableByteSource)) {
+            return null;
+        }
+        if (fileEntry.getOffset() + fileEntry.getSize() > source.size()) {
+            throw new EOFException("Archive ends within entry " + fileEntry.getName());
+        }
+        return ((SliceableByteSource) source).slice(fileEntry.getOffset(), (int) fileEntry.getSize());
+    }
+
+    /**
+     * Reads the offset and size of the directory from the archive header.
+     */
+    @Nonnull
+    long[] readDirectoryRange() throws IOException {
+        return read(PakIoPriority.BULK, PakDirectoryReader::readDirectoryRange);
+    }
+
+    /**
+     * Warms the page cache with the data of the entries in the background, see {@link PakWarmer}.
+     *
+     * @param entries supplier of the entries, called in the background
+     * @param ordered whether to warm the entries in their order instead of archive order
+     * @return future completed with the number of bytes warmed, cancelling it stops the warm-up, as does the
+     * release of the archive
+     */
+    @Nonnull
+    @SuppressWarnings("try")
+    CompletableFuture<Long> warm(@Nonnull Callable<? extends List<PakFileEntry>> entries, boolean ordered) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        backgroundTasks.add(future);
+        future.whenComplete((warmed, e) -> backgroundTasks.remove(future));
+        if (refCount.get() < 0) {
+            // Released meanwhile, the release has not seen this task
+            future.cancel(false);
+            return future;
+        }
+        try {
+            PakExecutors.background().execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    List<PakFileEntry> fileEntries = entries.call();
+                    try (PakIoScheduler.Reservation ignored = reserveIo(PakIoPriority.PREFETCH, 1)) {
+                        future.complete(read(PakIoPriority.PREFETCH,
+                                source -> PakWarmer.warm(source, fileEntries, ordered, options.getWarmupRate(), future)));
+                    }
+                } catch (CancellationException e) {
+                    // The future has been cancelled
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Lets an operation run up to the given number of background reads at a time, see
+     * {@link PakIoScheduler#reserve}.
+     */
+    @Nonnull
+    PakIoScheduler.Reservation reserveIo(@Nonnull PakIoPriority priority, int parallelism) {
+        return ioScheduler.reserve(priority, parallelism);
+    }
+
+    /**
+     * Returns the lowercase hexadecimal SHA-256 digest of the entry content, computed on first use and cached in
+     * the index snapshot the entry belongs to.
+     */
+    @Nonnull
+    String contentHash(@Nonnull PakFileIndex fileIndex, @Nonnull PakFileEntry fileEntry) throws IOException {
+        PakContentHashes hashes = fileIndex.getContentHashes();
+        String hash = hashes.get(fileEntry);
+        if (hash == null) {
+            hash = computeContentHash(fileEntry, PakIoPriority.INTERACTIVE);
+            hashes.put(fileEntry, hash);
+        }
+        return hash;
+    }
+
+    /**
+     * Reads the entry content and computes its lowercase hexadecimal SHA-256 digest, reusing the digest and the
+     * buffer of the calling thread.
+     *
+     * @param priority priority of the reads
+     */
+    @Nonnull
+    String computeContentHash(@Nonnull PakFileEntry fileEntry, @Nonnull PakIoPriority priority) throws IOException {
+        return read(priority, source -> computeContentHash(source, fileEntry));
+    }
+
+    @Nonnull
+    private String computeContentHash(@Nonnull PakByteSource source, @Nonnull PakFileEntry fileEntry) throws IOException {
+        try (PakEntryDecoder decoder = newDecoder(source, fileEntry)) {
+            MessageDigest digest = CONTENT_DIGEST.get();
+            ByteBuffer buffer = CONTENT_HASH_BUFFER.get();
+            digest.reset();
+
+            long position = 0;
+            while (position < fileEntry.getSize()) {
+                buffer.clear();
+                int read = decoder.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of file reading entry " + fileEntry.getName());
+                }
+                digest.update(buffer.array(), 0, read);
+                position += read;
+            }
+
+            return BaseEncoding.base16().lowerCase().encode(digest.digest());
+        }
+    }
+
+    /**
+     * Operation reading the archive bytes, see {@link #read(PakIoPriority, SourceReader)}.
+     *
+     * @param <E> exception thrown besides {@link IOException}
+     */
+    @FunctionalInterface
+    private interface SourceReader<T, E extends Exception> {
+        T read(@Nonnull PakByteSource source) throws IOException, E;
+    }
+
+    @Nonnull
+    private static MessageDigest newContentDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.ykrapiva.pakfs;
+
+import java.io.IOException;
+import java.nio.file.attribute.BasicFileAttributeView;
+
+/**
+ * Read-only attribute view exposing PAK specific entry attributes. Its name is {@code "pak"}, and besides
+ * the basic attributes it supports {@code "pak:offset"}, {@code "pak:storedSize"} and {@code "pak:contentHash"}.
+ * {@code "pak:*"} leaves out {@code contentHash}, which reads the whole entry, so it is computed only when named.
+ */
+public interface PakFileAttributeView extends BasicFileAttributeView {
+    String NAME = "pak";
+
+    @Override
+    PakFileAttributes readAttributes() throws IOException;
+}
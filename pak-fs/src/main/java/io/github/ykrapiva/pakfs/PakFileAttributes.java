@@ -0,0 +1,31 @@
+package io.github.ykrapiva.pakfs;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Attributes of a PAK archive entry, as read through the {@code "pak"} attribute view.
+ *
+ * @see PakFileAttributeView
+ */
+public interface PakFileAttributes extends BasicFileAttributes {
+    /**
+     * @return offset of the entry data within the archive, {@code 0} for the root directory
+     */
+    long offset();
+
+    /**
+     * @return number of bytes the entry data occupies within the archive, {@code 0} for the root directory
+     */
+    long storedSize();
+
+    /**
+     * Returns the lowercase hexadecimal SHA-256 digest of the entry content, suitable as a strong ETag. The
+     * content is read on first access and the hash is cached for the archive, shared by entries with the same
+     * data, and kept across mounts with the {@code contentHashSidecar} option. Prefer {@link #size()} or
+     * {@link #offset()} when the hash is not needed.
+     *
+     * @return content hash or {@code null} for the root directory
+     * @throws java.io.UncheckedIOException if the entry content cannot be read
+     */
+    String contentHash();
+}
@@ -0,0 +1,33 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import javax.annotation.Nonnull;
+
+@Value
+@AllArgsConstructor
+class PakFileEntry {
+    String name;
+    /**
+     * Offset of the entry data in the archive. Stored as an unsigned 32-bit number, so it may exceed 2 GB.
+     */
+    long offset;
+    /**
+     * Size of the entry content. Stored as an unsigned 32-bit number, so it may exceed 2 GB.
+     */
+    long size;
+    /**
+     * Number of bytes the entry data occupies in the archive, differs from {@link #size} for compressed entries.
+     */
+    long storedSize;
+    @Nonnull
+    PakEntryCodec codec;
+
+    /**
+     * Creates an entry stored as is.
+     */
+    PakFileEntry(String name, long offset, long size) {
+        this(name, offset, size, size, PakEntryCodecs.STORED);
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.ykrapiva.pakfs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.function.Consumer;
+
+/**
+ * Channel of an entry. A read fills the buffer unless the entry ends, so that {@code Files.readAllBytes}, which
+ * reads entries through {@link java.nio.channels.Channels#newInputStream} over this channel, gets a whole small
+ * entry in one call.
+ */
+class PakFileEntryChannel implements SeekableByteChannel {
+    private final PakEntryDecoder decoder;
+    private final PakFileEntry pakFileEntry;
+    private final Consumer<? super PakFileEntryChannel> closeListener;
+    private long position;
+    private volatile boolean open = true;
+
+    public PakFileEntryChannel(PakEntryDecoder decoder, PakFileEntry pakFileEntry,
+                               Consumer<? super PakFileEntryChannel> closeListener) {
+        this.decoder = decoder;
+        this.pakFileEntry = pakFileEntry;
+        this.closeListener = closeListener;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+
+        if (position >= pakFileEntry.getSize()) {
+            return -1; // EOF
+        }
+        if (!dst.hasRemaining()) {
+            return 0;
+        }
+
+        int total = 0;
+        while (dst.hasRemaining() && position < pakFileEntry.getSize()) {
+            int read = decoder.read(dst, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            total += read;
+        }
+        return total > 0 ? total : -1;
+    }
+
+    /**
+     * Reads from the position until the buffer is full, with one read of the archive for a stored entry, see
+     * {@link PakEntryDecoder#readFully}.
+     *
+     * @throws java.io.EOFException if the entry ends before
+     */
+    void readFully(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        int length = dst.remaining();
+        decoder.readFully(dst, position);
+        position += length;
+    }
+
+    @Override
+    public PakFileEntryChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return pakFileEntry.getSize();
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+        open = false;
+        try {
+            decoder.close();
+        } finally {
+            closeListener.accept(this);
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Getter;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable directory of an archive.
+ */
+class PakFileIndex {
+    /**
+     * Directory records in archive order, including duplicates.
+     */
+    private final List<PakFileEntry> records;
+    /**
+     * Entries in archive order. Like the original engines, the first record of a duplicated name wins.
+     */
+    private final List<PakFileEntry> entryList;
+    /**
+     * Ordinals of {@link #entries()} by exact name, shared by the case-sensitive path tables.
+     */
+    @Getter
+    private final PakNameTable nameTable;
+    /**
+     * Fingerprint of the archive file taken before the directory was read.
+     */
+    @Getter
+    private final PakFileSignature signature;
+    /**
+     * Rejects most lookups of absent names without touching the name tables.
+     */
+    @Getter
+    private final PakBloomFilter bloomFilter;
+    /**
+     * Content hashes of the entries computed so far.
+     */
+    @Getter
+    private final PakContentHashes contentHashes = new PakContentHashes();
+    /**
+     * Ordinals of {@link #entries()} sorted by data offset, the directory order breaking ties.
+     */
+    @Getter(lazy = true)
+    private final int[] offsetOrder = sortedOrder(Comparator.comparingLong(PakFileEntry::getOffset));
+    /**
+     * Ordinals of {@link #entries()} sorted by name.
+     */
+    @Getter(lazy = true)
+    private final int[] nameOrder = sortedOrder(Comparator.comparing(PakFileEntry::getName));
+
+    PakFileIndex(@Nonnull List<PakFileEntry> records, @Nonnull PakFileSignature signature) {
+        this(records, signature, PakExecutors.parallel());
+    }
+
+    /**
+     * The name table of the records and the filter of the entry names of a huge directory are built on the pool,
+     * see {@link PakExecutors#forEach}. The name table keeps the first record of a duplicated name whatever order
+     * the threads insert them in, so the entries are those of a sequential build.
+     *
+     * @param records random access list of the directory records
+     */
+    PakFileIndex(@Nonnull List<PakFileEntry> records, @Nonnull PakFileSignature signature, @Nonnull ForkJoinPool pool) {
+        this.records = Collections.unmodifiableList(records);
+        this.signature = signature;
+
+        PakNameTable recordTable = PakNameTable.build(names(records), false, pool);
+        boolean[] first = recordTable.foundOrdinals();
+        int[] entryOrdinals = new int[records.size()];
+        List<PakFileEntry> entries = new ArrayList<>();
+        for (int i = 0; i < first.length; i++) {
+            if (first[i]) {
+                entryOrdinals[i] = entries.size();
+                entries.add(records.get(i));
+            }
+        }
+        this.entryList = Collections.unmodifiableList(entries);
+        List<String> entryNames = names(entryList);
+        this.nameTable = entries.size() == records.size()
+                ? recordTable.renumber(entryNames)
+                : recordTable.renumber(entryNames, entryOrdinals);
+        this.bloomFilter = new PakBloomFilter(entryNames, pool);
+    }
+
+    /**
+     * @return view of the names of the entries
+     */
+    @Nonnull
+    static List<String> names(@Nonnull List<PakFileEntry> entries) {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return entries.get(index).getName();
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    @Nonnull
+    private int[] sortedOrder(@Nonnull Comparator<PakFileEntry> comparator) {
+        return IntStream.range(0, entryList.size())
+                .boxed()
+                .sorted(Comparator.comparing(entryList::get, comparator))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    @Nullable
+    PakFileEntry get(@Nonnull String name) {
+        int ordinal = nameTable.get(name);
+        return ordinal >= 0 ? entryList.get(ordinal) : null;
+    }
+
+    @Nonnull
+    List<PakFileEntry> entries() {
+        return entryList;
+    }
+
+    @Nonnull
+    List<PakFileEntry> records() {
+        return records;
+    }
+
+    /**
+     * Reports the entries that differ in the newer snapshot of the same archive. An entry is considered
+     * modified if its data has moved, changed size or storage method.
+     */
+    void diff(@Nonnull PakFileIndex newIndex, @Nonnull BiConsumer<WatchEvent.Kind<Path>, String> listener) {
+        for (PakFileEntry newEntry : newIndex.entryList) {
+            PakFileEntry oldEntry = get(newEntry.getName());
+            if (oldEntry == null) {
+                listener.accept(StandardWatchEventKinds.ENTRY_CREATE, newEntry.getName());
+            } else if (!oldEntry.equals(newEntry)) {
+                listener.accept(StandardWatchEventKinds.ENTRY_MODIFY, newEntry.getName());
+            }
+        }
+        for (PakFileEntry oldEntry : entryList) {
+            if (newIndex.get(oldEntry.getName()) == null) {
+                listener.accept(StandardWatchEventKinds.ENTRY_DELETE, oldEntry.getName());
+            }
+        }
+    }
+}
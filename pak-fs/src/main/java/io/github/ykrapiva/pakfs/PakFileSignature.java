@@ -0,0 +1,29 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Value;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Cheap fingerprint of an archive file used to detect that it has been modified or replaced.
+ */
+@Value
+class PakFileSignature {
+    long size;
+    FileTime lastModifiedTime;
+    /**
+     * Identity of the file, if the file system provides one. Tells apart files replaced by a rename.
+     */
+    Object fileKey;
+
+    @Nonnull
+    static PakFileSignature read(@Nonnull Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return new PakFileSignature(attributes.size(), attributes.lastModifiedTime(), attributes.fileKey());
+    }
+}
@@ -0,0 +1,547 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Read-only file system of a PAK archive. The directory of the archive is loaded on first access, or in the
+ * background if the file system was created with the {@code preload} option, see {@link #preload()}.
+ */
+@EqualsAndHashCode(of = "uri", callSuper = false)
+@ToString(of = "uri")
+public class PakFileSystem extends FileSystem {
+    static final String SEPARATOR = "/";
+    static final char SEPARATOR_CHAR = '/';
+    static final Set<String> SUPPORTED_FILE_ATTRIBUTE_VIEWS = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList("basic", PakFileAttributeView.NAME)));
+
+    final PakFileSystemProvider provider;
+    final URI uri;
+
+    final PakFile pakFile;
+    final PakPath rootPath;
+
+    /**
+     * Canonical entry paths of the most recently used index snapshot, built on first use.
+     */
+    private volatile PakPathTable pathTable;
+    private final AtomicBoolean open = new AtomicBoolean(true);
+    private final Set<PakFileEntryChannel> openChannels = ConcurrentHashMap.newKeySet();
+    /**
+     * Destination of the access profile written on close, {@code null} if not recording.
+     */
+    @Nullable
+    private final Path recordProfile;
+    @Nullable
+    private final PakAccessRecorder recorder;
+    private final PakIterationOrder iterationOrder;
+    private final boolean caseInsensitive;
+
+    public PakFileSystem(@Nonnull PakFileSystemProvider provider, @Nonnull URI uri) {
+        this(provider, uri, PakFileSystemOptions.DEFAULT);
+    }
+
+    PakFileSystem(@Nonnull PakFileSystemProvider provider, @Nonnull URI uri, @Nonnull PakFileSystemOptions options) {
+        this(provider, uri, provider.acquirePakFile(Paths.get(uri), options), options);
+    }
+
+    /**
+     * @param pakFile archive retained for this file system, released when it is closed
+     */
+    PakFileSystem(@Nonnull PakFileSystemProvider provider, @Nonnull URI uri, @Nonnull PakFile pakFile,
+                  @Nonnull PakFileSystemOptions options) {
+        this.provider = provider;
+        this.uri = uri;
+        this.pakFile = pakFile;
+        this.rootPath = new PakPath(this);
+        this.recordProfile = options.getRecordProfile();
+        this.recorder = recordProfile != null ? new PakAccessRecorder() : null;
+        this.iterationOrder = options.getIterationOrder();
+        this.caseInsensitive = options.isCaseInsensitive();
+    }
+
+    @Override
+    public FileSystemProvider provider() {
+        return this.provider;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open.get();
+    }
+
+    /**
+     * Closes all channels opened through this file system and unregisters it from the provider.
+     * The archive index is released once the last file system sharing it is closed. The access profile is
+     * written if the file system was created with the {@code recordProfile} option.
+     *
+     * @throws UncheckedIOException if a channel cannot be closed or the access profile cannot be written, the
+     *                              file system is closed nevertheless
+     */
+    @Override
+    public void close() {
+        if (!open.compareAndSet(true, false)) {
+            return;
+        }
+
+        provider.removeFileSystem(this);
+
+        IOException failure = null;
+        for (PakFileEntryChannel channel : openChannels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        if (recorder != null) {
+            try {
+                PakAccessProfile profile = recorder.toProfile();
+                if (profile != null) {
+                    profile.write(recordProfile);
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+
+        provider.releasePakFile(pakFile);
+
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public String getSeparator() {
+        return SEPARATOR;
+    }
+
+    @Override
+    public Iterable<Path> getRootDirectories() {
+        return Collections.singleton(rootPath);
+    }
+
+    @Override
+    public Iterable<FileStore> getFileStores() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Set<String> supportedFileAttributeViews() {
+        return SUPPORTED_FILE_ATTRIBUTE_VIEWS;
+    }
+
+    @Override
+    public PakPath getPath(@Nonnull String first, @Nonnull String... more) {
+        if (more.length == 0) {
+            return first.isEmpty() ? rootPath : getEntryPath(first);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(first);
+
+        for (String path : more) {
+            if (path.length() > 0) {
+                if (sb.length() > 0) {
+                    sb.append('/');
+                }
+                sb.append(path);
+            }
+        }
+
+        String entryPath = sb.toString();
+        if (entryPath.isEmpty()) {
+            return rootPath;
+        }
+
+        return getEntryPath(entryPath);
+    }
+
+    /**
+     * Returns the canonical path of the entry if the index is loaded and has such an entry, a new path otherwise.
+     */
+    @Nonnull
+    PakPath getEntryPath(@Nonnull String entryPath) {
+        if (entryPath.equals(PakPath.ROOT)) {
+            return rootPath;
+        }
+        PakPathTable table = loadedPathTable();
+        PakPath path = table != null ? table.get(entryPath) : null;
+        // A path keeps the spelling it was created with, other spellings resolve on use
+        return path != null && path.entryPath.equals(entryPath) ? path : new PakPath(this, entryPath);
+    }
+
+    /**
+     * Returns the canonical path of the entry {@code parent + "/" + child} if the index is loaded and has such
+     * an entry, a new path otherwise.
+     */
+    @Nonnull
+    PakPath getEntryPath(@Nonnull String parent, @Nonnull String child) {
+        PakPathTable table = loadedPathTable();
+        PakPath path = table != null ? table.get(parent, child) : null;
+        if (path != null && caseInsensitive && !isSpelledAs(path.entryPath, parent, child)) {
+            path = null;
+        }
+        return path != null ? path : new PakPath(this, parent + SEPARATOR + child);
+    }
+
+    private static boolean isSpelledAs(@Nonnull String name, @Nonnull String parent, @Nonnull String child) {
+        return name.startsWith(parent) && name.regionMatches(parent.length() + 1, child, 0, child.length());
+    }
+
+    @Override
+    public PathMatcher getPathMatcher(String syntaxAndPattern) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public UserPrincipalLookupService getUserPrincipalLookupService() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WatchService newWatchService() {
+        ensureOpen();
+        return new PakWatchService();
+    }
+
+    /**
+     * Starts loading the archive directory in the background unless it has already been loaded, so that
+     * mounting can overlap with other work.
+     *
+     * @return future completed with this file system once the directory is loaded, or exceptionally if
+     * the archive cannot be read
+     */
+    @Nonnull
+    public CompletableFuture<PakFileSystem> preload() {
+        ensureOpen();
+        return pakFile.preloadIndex().thenApply(index -> this);
+    }
+
+    /**
+     * Prefetches the entries of an access profile in the background, in the order they were first opened when
+     * the profile was recorded. Does nothing if the profile does not exist or was recorded for a different
+     * archive.
+     *
+     * @return future completed with the number of bytes warmed
+     */
+    @Nonnull
+    CompletableFuture<Long> replay(@Nonnull Path profilePath) {
+        return pakFile.warm(() -> {
+            if (!Files.exists(profilePath)) {
+                return Collections.emptyList();
+            }
+            return PakAccessProfile.read(profilePath).entries(pakFile.getIndex());
+        }, true);
+    }
+
+    /**
+     * Returns the share of lookups of absent entries that were not rejected by the name filter of the current
+     * archive directory and needed a full lookup. The rate is observed since the directory was loaded.
+     *
+     * @return false positive rate between {@code 0} and {@code 1}, or {@code NaN} if no absent entry has been
+     * looked up yet or the directory is not loaded
+     */
+    public double getLookupFilterFalsePositiveRate() {
+        PakFileIndex index = pakFile.peekIndex();
+        return index != null ? index.getBloomFilter().falsePositiveRate() : Double.NaN;
+    }
+
+    /**
+     * Checks that the data of every entry lies within the archive and does not overlap the data of other entries,
+     * which takes a sort of the directory. Optionally reads and hashes every entry content as well, to find
+     * entries that cannot be read or decompressed.
+     *
+     * @param checksums   whether to read every entry content, the report then has its content hashes
+     * @param parallelism number of threads reading entry contents
+     */
+    @Nonnull
+    public PakVerificationReport verify(boolean checksums, int parallelism) throws IOException {
+        ensureOpen();
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        return PakFileVerifier.verify(pakFile, pakFile.getIndex(), checksums, parallelism);
+    }
+
+    /**
+     * Reads the contents of many entries at once. The entry data is read in offset order, with neighbouring
+     * entries merged into large sequential reads, which is much faster than reading the entries one by one.
+     * The contents of entries stored as is are views of the buffer of their read, nothing is copied.
+     *
+     * @param paths paths of the entries of this file system
+     * @return read-only contents by path, in the order of the paths
+     * @throws NoSuchFileException if an entry does not exist
+     */
+    @Nonnull
+    public Map<Path, ByteBuffer> readAll(@Nonnull Collection<? extends Path> paths) throws IOException {
+        ensureOpen();
+        List<Path> distinctPaths = new ArrayList<>(new LinkedHashSet<>(paths));
+        ByteBuffer[] contents = pakFile.readContents(findEntries(distinctPaths));
+        Map<Path, ByteBuffer> result = new LinkedHashMap<>();
+        for (int i = 0; i < contents.length; i++) {
+            result.put(distinctPaths.get(i), contents[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the content of an entry as a read-only buffer. For entries stored as is in an archive mounted
+     * from memory or with the {@code mapped} option, the buffer is a view of the archive bytes and nothing is
+     * copied, other entries are read into a new buffer.
+     *
+     * @throws NoSuchFileException if the entry does not exist
+     */
+    @Nonnull
+    public ByteBuffer readBuffer(@Nonnull Path path) throws IOException {
+        ensureOpen();
+        PakFileEntry entry = findEntries(Collections.singletonList(path)).get(0);
+        ByteBuffer slice = pakFile.slice(entry);
+        if (slice != null) {
+            return slice;
+        }
+        return pakFile.readContents(Collections.singletonList(entry))[0];
+    }
+
+    /**
+     * Brings the data of the entries into the page cache in the background, so that their first reads do not
+     * wait for the disk. The data is read in archive order at the rate limited by the {@code warmupRate} option.
+     *
+     * @param paths paths of the entries of this file system
+     * @return future completed with the number of bytes warmed, or exceptionally with
+     * {@link NoSuchFileException} if an entry does not exist. Cancelling the future stops the warm-up.
+     */
+    @Nonnull
+    public CompletableFuture<Long> warm(@Nonnull Collection<? extends Path> paths) {
+        ensureOpen();
+        List<Path> pathList = new ArrayList<>(paths);
+        return pakFile.warm(() -> findEntries(pathList), false);
+    }
+
+    /**
+     * Brings the data of all entries into the page cache in the background.
+     *
+     * @see #warm(Collection)
+     */
+    @Nonnull
+    public CompletableFuture<Long> warmAll() {
+        ensureOpen();
+        return pakFile.warm(() -> new ArrayList<>(pakFile.getIndex().entries()), false);
+    }
+
+    @Nonnull
+    private List<PakFileEntry> findEntries(@Nonnull List<Path> paths) throws IOException {
+        List<PakFileEntry> entries = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            PakPath pakPath = toPakPath(path);
+            PakFileEntry entry = pakPath.isRoot() ? null : findEntry(pakPath);
+            if (entry == null) {
+                throw new NoSuchFileException(path.toString());
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Nonnull
+    private PakPath toPakPath(@Nonnull Path path) {
+        if (path instanceof PakPath && ((PakPath) path).fileSystem == this) {
+            return (PakPath) path;
+        } else {
+            throw new IllegalArgumentException("Path does not belong to this file system: " + path);
+        }
+    }
+
+    @Nonnull
+    Iterator<Path> iterator(@Nonnull DirectoryStream.Filter<? super Path> filter) {
+        ensureOpen();
+        try {
+            return pathTable(pakFile.getIndex()).paths(iterationOrder).stream()
+                    .map(path -> (Path) path)
+                    .filter(path -> isAccepted(filter, path))
+                    .iterator();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean isAccepted(DirectoryStream.Filter<? super Path> filter, Path path) {
+        try {
+            return filter.accept(path);
+        } catch (IOException e) {
+            throw new DirectoryIteratorException(e);
+        }
+    }
+
+    /**
+     * @return archive file or {@code null} if the archive was mounted from a {@link PakByteSource}
+     */
+    @Nullable
+    Path getPakFilePath() {
+        return pakFile.getPath();
+    }
+
+    /**
+     * Reads attributes of the path, looking its entry up only once.
+     */
+    @Nonnull
+    PakPathAttributes readAttributes(@Nonnull PakPath path) throws IOException {
+        ensureOpen();
+        if (path.isRoot()) {
+            return new PakPathAttributes(path, null, null);
+        }
+        PakPath.Resolution resolution = resolve(path);
+        if (resolution == null) {
+            throw new NoSuchFileException(path.entryPath);
+        }
+        return new PakPathAttributes(path, resolution.index, resolution.entry);
+    }
+
+    /**
+     * Looks the path up in the current index, remembering the result in the path so that later operations on
+     * the same instance skip the lookup until the index is reloaded.
+     */
+    @Nullable
+    private PakFileEntry findEntry(@Nonnull PakPath path) throws IOException {
+        PakPath.Resolution resolution = resolve(path);
+        return resolution != null ? resolution.entry : null;
+    }
+
+    /**
+     * @return entry of the path and the index snapshot it was found in, {@code null} if there is no such entry
+     */
+    @Nullable
+    private PakPath.Resolution resolve(@Nonnull PakPath path) throws IOException {
+        // Before the index is loaded, a filter kept next to the archive answers for absent names
+        PakBloomFilter sidecarFilter = caseInsensitive ? null : pakFile.peekSidecarNameFilter();
+        if (sidecarFilter != null && !sidecarFilter.mightContain(path.entryPath)) {
+            return null;
+        }
+        PakFileIndex index = pakFile.getIndex();
+        PakPath.Resolution resolution = path.resolution;
+        if (resolution != null && resolution.index == index) {
+            return resolution;
+        }
+        // The filter holds exact names
+        PakBloomFilter bloomFilter = caseInsensitive ? null : index.getBloomFilter();
+        if (bloomFilter != null && !bloomFilter.mightContain(path.entryPath)) {
+            return null;
+        }
+        PakPath canonicalPath = pathTable(index).get(path.entryPath);
+        if (canonicalPath == null) {
+            if (bloomFilter != null) {
+                bloomFilter.falsePositive();
+            }
+            return null;
+        }
+        resolution = canonicalPath.resolution;
+        path.resolution = resolution;
+        return resolution;
+    }
+
+    @Nonnull
+    private PakPathTable pathTable(@Nonnull PakFileIndex index) {
+        PakPathTable table = pathTable;
+        if (table == null || table.index != index) {
+            table = new PakPathTable(this, index, caseInsensitive);
+            pathTable = table;
+        }
+        return table;
+    }
+
+    /**
+     * @return path table of the current index or {@code null} if the index has not been loaded yet
+     */
+    @Nullable
+    private PakPathTable loadedPathTable() {
+        PakFileIndex index = pakFile.peekIndex();
+        return index != null ? pathTable(index) : null;
+    }
+
+    boolean exists(@Nonnull PakPath path) {
+        ensureOpen();
+        try {
+            return path.isRoot() || findEntry(path) != null;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    @Nonnull
+    PakFileEntryChannel newReadOnlyChannel(@Nonnull PakPath path) throws IOException {
+        ensureOpen();
+        PakPath.Resolution resolution = resolve(path);
+        if (resolution == null) {
+            throw new NoSuchElementException(path.entryPath);
+        }
+        PakFileEntry pakFileEntry = resolution.entry;
+
+        if (recorder != null) {
+            // The index the entry was found in, a reload meanwhile must not record it against another one
+            recorder.record(resolution.index, pakFileEntry);
+        }
+
+        PakFileEntryChannel channel = pakFile.newReadOnlyChannel(pakFileEntry, openChannels::remove);
+        openChannels.add(channel);
+        if (!isOpen()) {
+            channel.close();
+            throw new ClosedFileSystemException();
+        }
+        return channel;
+    }
+
+    private void ensureOpen() {
+        if (!isOpen()) {
+            throw new ClosedFileSystemException();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Value;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Options passed in the {@code env} map of {@link PakFileSystemProvider#newFileSystem(java.net.URI, Map)}.
+ * Archive level options are taken from the file system that opens the archive first.
+ */
+@Value
+class PakFileSystemOptions {
+    /**
+     * Minimum interval in milliseconds between checks whether the archive has changed on disk, {@code 0}
+     * disables reloading. Archive level option.
+     */
+    static final String RELOAD_INTERVAL = "reloadInterval";
+    /**
+     * Whether to start loading the archive index in the background as soon as the file system is created.
+     */
+    static final String PRELOAD = "preload";
+    /**
+     * Whether to read entries through memory mappings of the archive instead of file channels. Archive level option.
+     */
+    static final String MAPPED = "mapped";
+    /**
+     * Maximum number of bytes of decompressed blocks of block compressed entries kept in memory, {@code 0}
+     * disables the cache. Archive level option.
+     */
+    static final String BLOCK_CACHE_SIZE = "blockCacheSize";
+    /**
+     * Maximum number of bytes per second read by page cache warm-ups, {@code 0} for no limit. Archive level option.
+     */
+    static final String WARMUP_RATE = "warmupRate";
+    /**
+     * File to write the access profile of the file system to when it is closed, a {@link Path} or a string.
+     */
+    static final String RECORD_PROFILE = "recordProfile";
+    /**
+     * Access profile file whose entries are prefetched in the background when the file system is created,
+     * a {@link Path} or a string. A missing profile or one recorded for a different archive is ignored.
+     */
+    static final String REPLAY_PROFILE = "replayProfile";
+    /**
+     * Archive bytes to mount, a {@link ByteBuffer} or a byte array, for {@code pak:source:<name>} URIs.
+     */
+    static final String BUFFER = "buffer";
+    /**
+     * Order of directory listings, a {@link PakIterationOrder} or its name.
+     */
+    static final String ITERATION_ORDER = "iterationOrder";
+    /**
+     * Whether entry names are matched ignoring the case of ASCII letters.
+     */
+    static final String CASE_INSENSITIVE = "caseInsensitive";
+    /**
+     * Whether to keep the content hashes of entries in a {@code .hashes} file next to the archive, so that
+     * later mounts do not compute them again. Archive level option.
+     */
+    static final String CONTENT_HASH_SIDECAR = "contentHashSidecar";
+    /**
+     * Whether to keep the filter of entry names in a {@code .names} file next to the archive, so that later
+     * mounts answer lookups of absent entries before loading the index. Archive level option.
+     */
+    static final String NAME_FILTER_SIDECAR = "nameFilterSidecar";
+
+    static final PakFileSystemOptions DEFAULT = from(Collections.emptyMap());
+
+    long reloadIntervalNanos;
+    boolean preload;
+    boolean mapped;
+    long blockCacheSize;
+    long warmupRate;
+    @Nullable
+    Path recordProfile;
+    @Nullable
+    Path replayProfile;
+    @Nullable
+    ByteBuffer buffer;
+    @Nonnull
+    PakIterationOrder iterationOrder;
+    boolean caseInsensitive;
+    boolean contentHashSidecar;
+    boolean nameFilterSidecar;
+
+    @Nonnull
+    static PakFileSystemOptions from(@Nonnull Map<String, ?> env) {
+        long reloadInterval = getLong(env, RELOAD_INTERVAL, 0);
+        if (reloadInterval < 0) {
+            throw new IllegalArgumentException(RELOAD_INTERVAL + " must not be negative: " + reloadInterval);
+        }
+        long blockCacheSize = getLong(env, BLOCK_CACHE_SIZE, 4 << 20);
+        if (blockCacheSize < 0) {
+            throw new IllegalArgumentException(BLOCK_CACHE_SIZE + " must not be negative: " + blockCacheSize);
+        }
+        long warmupRate = getLong(env, WARMUP_RATE, 64 << 20);
+        if (warmupRate < 0) {
+            throw new IllegalArgumentException(WARMUP_RATE + " must not be negative: " + warmupRate);
+        }
+        return new PakFileSystemOptions(TimeUnit.MILLISECONDS.toNanos(reloadInterval),
+                getBoolean(env, PRELOAD, false),
+                getBoolean(env, MAPPED, false),
+                blockCacheSize,
+                warmupRate,
+                getPath(env, RECORD_PROFILE),
+                getPath(env, REPLAY_PROFILE),
+                getBuffer(env, BUFFER),
+                getIterationOrder(env, ITERATION_ORDER),
+                getBoolean(env, CASE_INSENSITIVE, false),
+                getBoolean(env, CONTENT_HASH_SIDECAR, false),
+                getBoolean(env, NAME_FILTER_SIDECAR, false));
+    }
+
+    @Nonnull
+    private static PakIterationOrder getIterationOrder(@Nonnull Map<String, ?> env, @Nonnull String name) {
+        Object value = env.get(name);
+        if (value == null) {
+            return PakIterationOrder.DIRECTORY;
+        }
+        if (value instanceof PakIterationOrder) {
+            return (PakIterationOrder) value;
+        }
+        try {
+            return PakIterationOrder.valueOf(value.toString().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value of " + name + ": " + value, e);
+        }
+    }
+
+    @Nullable
+    private static ByteBuffer getBuffer(@Nonnull Map<String, ?> env, @Nonnull String name) {
+        Object value = env.get(name);
+        if (value == null || value instanceof ByteBuffer) {
+            return (ByteBuffer) value;
+        }
+        if (value instanceof byte[]) {
+            return ByteBuffer.wrap((byte[]) value);
+        }
+        throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+    }
+
+    @Nullable
+    private static Path getPath(@Nonnull Map<String, ?> env, @Nonnull String name) {
+        Object value = env.get(name);
+        if (value == null || value instanceof Path) {
+            return (Path) value;
+        }
+        try {
+            return Paths.get(value.toString());
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("Invalid value of " + name + ": " + value, e);
+        }
+    }
+
+    private static boolean getBoolean(@Nonnull Map<String, ?> env, @Nonnull String name, boolean defaultValue) {
+        Object value = env.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        String s = value.toString();
+        if ("true".equalsIgnoreCase(s) || "false".equalsIgnoreCase(s)) {
+            return Boolean.parseBoolean(s);
+        }
+        throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+    }
+
+    private static long getLong(@Nonnull Map<String, ?> env, @Nonnull String name, long defaultValue) {
+        Object value = env.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value of " + name + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryStream;
+import java.nio.file.DirectoryStream.Filter;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class PakFileSystemProvider extends FileSystemProvider {
+    /**
+     * Scheme of the URIs of archives mounted from a {@link PakByteSource}, like {@code pak:source:name!entry}.
+     */
+    static final String SOURCE_SCHEME = "source";
+
+    private final ConcurrentMap<URI, PakFileSystem> fileSystems = new ConcurrentHashMap<>();
+    /**
+     * Archives shared by all file systems of this provider, keyed by their real path, so that
+     * different URI spellings of the same file reuse one index.
+     */
+    private final ConcurrentMap<Path, PakFile> pakFiles = new ConcurrentHashMap<>();
+    /**
+     * Budget of open files and mapped bytes of all archives of this provider.
+     */
+    final PakResourceManager resourceManager = new PakResourceManager();
+    /**
+     * Priority order of the reads of all archives of this provider.
+     */
+    final PakIoScheduler ioScheduler = new PakIoScheduler();
+
+    /**
+     * Limits the resources held by all archives of this provider. Archive channels that have not been read for
+     * the longest time are closed, and mappings dropped, to stay within the limits, and are reopened on the
+     * next read. The defaults are taken from the {@code io.github.ykrapiva.pakfs.maxOpenFiles} and
+     * {@code io.github.ykrapiva.pakfs.maxMappedBytes} system properties, or are 256 files and 16 GB.
+     * <p>
+     * The mapped bytes limit is a soft cap: a dropped mapping stays in memory until it is garbage collected,
+     * and while a buffer returned by {@link PakFileSystem#readBuffer} still references it.
+     *
+     * @param maxOpenFiles   maximum number of archive files kept open
+     * @param maxMappedBytes maximum number of archive bytes kept mapped with the {@code mapped} option
+     */
+    public void setResourceLimits(int maxOpenFiles, long maxMappedBytes) {
+        resourceManager.setLimits(maxOpenFiles, maxMappedBytes);
+    }
+
+    /**
+     * Caps the bandwidth of background reads of all archives of this provider, such as warm-ups, access
+     * profile replays and verification. Reads of entry channels always run right away, and background reads
+     * wait while they are in flight. The default is taken from the {@code io.github.ykrapiva.pakfs.backgroundIoRate}
+     * system property, or is no limit.
+     *
+     * @param bytesPerSecond maximum number of bytes per second, {@code 0} for no limit
+     */
+    public void setBackgroundIoRate(long bytesPerSecond) {
+        ioScheduler.setBackgroundRate(bytesPerSecond);
+    }
+
+    /**
+     * Verifies an archive file without mounting it, see {@link PakFileSystem#verify(boolean, int)}. An archive
+     * whose header or directory cannot be parsed, which a mount would reject, yields a report with the error.
+     *
+     * @param checksums   whether to read every entry content, the report then has its content hashes
+     * @param parallelism number of threads reading entry contents
+     */
+    @Nonnull
+    public PakVerificationReport verify(@Nonnull Path archive, boolean checksums, int parallelism) throws IOException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        }
+        FileChannel fileChannel = FileChannel.open(archive, StandardOpenOption.READ);
+        PakFile pakFile = new PakFile(archive.toString(), new FileChannelByteSource(fileChannel),
+                PakFileSystemOptions.DEFAULT, resourceManager, ioScheduler);
+        pakFile.retain();
+        try {
+            return PakFileVerifier.verify(pakFile, fileChannel.size(), checksums, parallelism);
+        } finally {
+            pakFile.release();
+        }
+    }
+
+    @Override
+    public String getScheme() {
+        return "pak";
+    }
+
+    /**
+     * Mounts the archive file of the URI, or the archive bytes passed in the {@code buffer} option for a
+     * {@code pak:source:<name>} URI, see {@link #newFileSystem(String, ByteBuffer, Map)}.
+     */
+    @Override
+    public PakFileSystem newFileSystem(URI uri, Map<String, ?> env) {
+        URI pakFileUri = createPakFileUri(uri);
+        PakFileSystemOptions options = PakFileSystemOptions.from(env);
+        if (SOURCE_SCHEME.equals(pakFileUri.getScheme())) {
+            if (options.getBuffer() == null) {
+                throw new IllegalArgumentException("Archive " + pakFileUri + " needs the "
+                        + PakFileSystemOptions.BUFFER + " option");
+            }
+            return newSourceFileSystem(pakFileUri.getSchemeSpecificPart(), PakByteSources.of(options.getBuffer()), options);
+        }
+        if (fileSystems.containsKey(pakFileUri)) {
+            throw new FileSystemAlreadyExistsException(pakFileUri.toString());
+        }
+        PakFileSystem fs = new PakFileSystem(this, pakFileUri, options);
+        if (fileSystems.putIfAbsent(pakFileUri, fs) != null) {
+            fs.close();
+            throw new FileSystemAlreadyExistsException(pakFileUri.toString());
+        }
+        startBackgroundLoads(fs, options);
+        return fs;
+    }
+
+    /**
+     * Mounts an archive read from the source, such as an archive within another archive or an object of a
+     * remote store. The file system is registered under the URI {@code pak:source:<name>}, so that its paths
+     * can be resolved with {@link java.nio.file.Paths#get(URI)}. The source is closed with the file system.
+     * Archive level options apply except for {@code reloadInterval} and {@code mapped}, since the source cannot
+     * change and has no file to map.
+     *
+     * @param name unique name of the archive, which must not contain {@code !}
+     * @throws FileSystemAlreadyExistsException if an archive with this name is mounted
+     */
+    @Nonnull
+    public PakFileSystem newFileSystem(@Nonnull String name, @Nonnull PakByteSource source, @Nonnull Map<String, ?> env) {
+        return newSourceFileSystem(name, source, PakFileSystemOptions.from(env));
+    }
+
+    /**
+     * Mounts an archive held in memory, such as a class path resource or an archive received over the network.
+     * The directory is parsed from the buffer in place and entry contents are read straight from it, see
+     * {@link PakFileSystem#readBuffer(Path)} for views of entries without copies. The bytes between the position
+     * and the limit of the buffer are the archive, they must not change while mounted.
+     *
+     * @param name unique name of the archive, which must not contain {@code !}
+     * @throws FileSystemAlreadyExistsException if an archive with this name is mounted
+     * @see #newFileSystem(String, PakByteSource, Map)
+     */
+    @Nonnull
+    public PakFileSystem newFileSystem(@Nonnull String name, @Nonnull ByteBuffer buffer, @Nonnull Map<String, ?> env) {
+        return newFileSystem(name, PakByteSources.of(buffer), env);
+    }
+
+    @Nonnull
+    private PakFileSystem newSourceFileSystem(@Nonnull String name, @Nonnull PakByteSource source,
+                                              @Nonnull PakFileSystemOptions options) {
+        if (name.isEmpty() || name.contains("!")) {
+            throw new IllegalArgumentException("Invalid archive name: " + name);
+        }
+        URI sourceUri;
+        try {
+            sourceUri = new URI(SOURCE_SCHEME, name, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid archive name: " + name, e);
+        }
+        if (fileSystems.containsKey(sourceUri)) {
+            throw new FileSystemAlreadyExistsException(sourceUri.toString());
+        }
+        PakFile pakFile = new PakFile(name, source, options, resourceManager, ioScheduler);
+        pakFile.retain();
+        PakFileSystem fs = new PakFileSystem(this, sourceUri, pakFile, options);
+        if (fileSystems.putIfAbsent(sourceUri, fs) != null) {
+            fs.close();
+            throw new FileSystemAlreadyExistsException(sourceUri.toString());
+        }
+        startBackgroundLoads(fs, options);
+        return fs;
+    }
+
+    private static void startBackgroundLoads(@Nonnull PakFileSystem fs, @Nonnull PakFileSystemOptions options) {
+        if (options.isPreload()) {
+            fs.preload();
+        }
+        if (options.getReplayProfile() != null) {
+            fs.replay(options.getReplayProfile());
+        }
+    }
+
+    @Override
+    public PakFileSystem getFileSystem(URI uri) {
+        URI pakFileUri = createPakFileUri(uri);
+        PakFileSystem fs = fileSystems.get(pakFileUri);
+        if (fs == null) {
+            throw new FileSystemNotFoundException();
+        }
+        return fs;
+    }
+
+    @Nonnull
+    PakFileSystem getOrCreateFileSystem(@Nonnull URI uri) throws IOException {
+        URI pakFileUri = createPakFileUri(uri);
+        while (true) {
+            PakFileSystem fs = fileSystems.get(pakFileUri);
+            if (fs == null) {
+                fs = fileSystems.computeIfAbsent(pakFileUri, key -> new PakFileSystem(this, key));
+            }
+            if (fs.isOpen()) {
+                return fs;
+            }
+            // Lost the race against close(), which is about to unregister it
+            fileSystems.remove(pakFileUri, fs);
+        }
+    }
+
+    void removeFileSystem(@Nonnull PakFileSystem fileSystem) {
+        fileSystems.remove(fileSystem.uri, fileSystem);
+    }
+
+    @Nonnull
+    PakFile acquirePakFile(@Nonnull Path path, @Nonnull PakFileSystemOptions options) {
+        Path realPath = toRealPath(path);
+        while (true) {
+            PakFile pakFile = pakFiles.computeIfAbsent(realPath, key -> new PakFile(key, options, resourceManager, ioScheduler));
+            if (pakFile.retain()) {
+                return pakFile;
+            }
+            // Released concurrently by its last file system
+            pakFiles.remove(realPath, pakFile);
+        }
+    }
+
+    void releasePakFile(@Nonnull PakFile pakFile) {
+        if (pakFile.release() && pakFile.getPath() != null) {
+            pakFiles.remove(pakFile.getPath(), pakFile);
+        }
+    }
+
+    @Override
+    public PakPath getPath(@Nonnull URI uri) {
+        final String entryPathSeparator = "!";
+        String entryPath = PakPath.ROOT;
+
+        String schemeSpecificPart = uri.getSchemeSpecificPart();
+        int entryPathIndex = schemeSpecificPart.indexOf(entryPathSeparator);
+        if (entryPathIndex != -1) {
+            entryPath = schemeSpecificPart.substring(entryPathIndex + entryPathSeparator.length());
+        }
+
+        try {
+            PakFileSystem fileSystem = getOrCreateFileSystem(uri);
+            return fileSystem.getPath(entryPath);
+        } catch (IOException e) {
+            throw new FileSystemNotFoundException(e.getMessage());
+        }
+    }
+
+    @Override
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+        PakPath pakPath = toPakPath(path);
+        if (options.isEmpty() || (options.size() == 1 && options.contains(StandardOpenOption.READ))) {
+            return pakPath.newReadOnlyChannel();
+        } else {
+            throw new UnsupportedOperationException("Only " + StandardOpenOption.READ + " option is supported");
+        }
+    }
+
+    @Override
+    public InputStream newInputStream(Path path, OpenOption... options) throws IOException {
+        PakPath pakPath = toPakPath(path);
+        for (OpenOption option : options) {
+            if (option != StandardOpenOption.READ) {
+                throw new UnsupportedOperationException("Only " + StandardOpenOption.READ + " option is supported");
+            }
+        }
+        return new PakEntryInputStream(pakPath.newReadOnlyChannel());
+    }
+
+    @Override
+    public DirectoryStream<Path> newDirectoryStream(Path path, Filter<? super Path> filter) throws IOException {
+        PakPath pakPath = toPakPath(path);
+        if (pakPath.isRoot()) {
+            return new DirectoryStream<Path>() {
+                @Override
+                public Iterator<Path> iterator() {
+                    return ((PakPath) path).fileSystem.iterator(filter);
+                }
+
+                @Override
+                public void close() {
+
+                }
+            };
+        } else {
+            throw new NotDirectoryException(pakPath.toString());
+        }
+    }
+
+    @Override
+    public void createDirectory(Path dir, FileAttribute<?>... attrs) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void delete(Path path) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void copy(Path source, Path target, CopyOption... options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void move(Path source, Path target, CopyOption... options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isSameFile(Path path, Path path2) {
+        return path.toUri().equals(path2.toUri());
+    }
+
+    @Override
+    public boolean isHidden(Path path) {
+        return false;
+    }
+
+    @Override
+    public FileStore getFileStore(Path path) throws IOException {
+        PakPath pakPath = toPakPath(path);
+        Path pakFilePath = pakPath.fileSystem.getPakFilePath();
+        if (pakFilePath == null) {
+            throw new UnsupportedOperationException("Archive " + pakPath.fileSystem.uri + " is not a file");
+        }
+        return pakFilePath.getFileSystem().provider().getFileStore(pakFilePath);
+    }
+
+    @Override
+    public void checkAccess(Path path, @Nonnull AccessMode... modesArray) throws IOException {
+        PakPath pakPath = toPakPath(path);
+        Set<AccessMode> modes = new HashSet<>(Arrays.asList(modesArray));
+
+        if (!modes.isEmpty()) {
+            if (modes.size() > 1 || !modes.contains(AccessMode.READ)) {
+                throw new AccessDeniedException(pakPath.toString());
+            }
+        }
+        if (!pakPath.exists()) {
+            throw new NoSuchFileException(pakPath.toString());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+        if (type == BasicFileAttributeView.class) {
+            return (V) new PakPathAttributeView(toPakPath(path), "basic");
+        }
+        if (type == PakFileAttributeView.class) {
+            return (V) new PakPathAttributeView(toPakPath(path), PakFileAttributeView.NAME);
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+        PakPath pakPath = toPakPath(path);
+        if (!type.isAssignableFrom(PakPathAttributes.class)) {
+            throw new UnsupportedOperationException("Attributes of type " + type.getName() + " not supported");
+        }
+        return (A) pakPath.readAttributes();
+    }
+
+    @Override
+    public Map<String, Object> readAttributes(Path path, @Nonnull String attributes, LinkOption... options) throws IOException {
+        PakPath pakPath = toPakPath(path);
+
+        String view = "basic";
+        int viewSeparatorIndex = attributes.indexOf(':');
+        if (viewSeparatorIndex != -1) {
+            view = attributes.substring(0, viewSeparatorIndex);
+            attributes = attributes.substring(viewSeparatorIndex + 1);
+        }
+        if (!PakFileSystem.SUPPORTED_FILE_ATTRIBUTE_VIEWS.contains(view)) {
+            throw new UnsupportedOperationException("View " + view + " not supported");
+        }
+
+        return pakPath.readAttributes().toMap(view, attributes);
+    }
+
+    @Override
+    public void setAttribute(Path path, String attribute, Object value, LinkOption... options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Nonnull
+    private URI createPakFileUri(@Nonnull URI uri) {
+        String schemeSpecificPart = uri.getSchemeSpecificPart();
+        int i = schemeSpecificPart.indexOf("!");
+        if (i >= 0) {
+            schemeSpecificPart = schemeSpecificPart.substring(0, i);
+        }
+        schemeSpecificPart = schemeSpecificPart.replace(" ", "%20");
+        if (schemeSpecificPart.startsWith(SOURCE_SCHEME + ":")) {
+            return URI.create(schemeSpecificPart);
+        }
+        return URI.create("file:" + schemeSpecificPart);
+    }
+
+    @Nonnull
+    private static Path toRealPath(@Nonnull Path path) {
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            return path.toAbsolutePath().normalize();
+        }
+    }
+
+    private PakPath toPakPath(@Nonnull Path path) {
+        if (path instanceof PakPath) {
+            return (PakPath) path;
+        } else {
+            throw new IllegalArgumentException("Path is not an instance of " + PakPath.class);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.ykrapiva.pakfs;
+
+import io.github.ykrapiva.pakfs.PakVerificationReport.Issue;
+import io.github.ykrapiva.pakfs.PakVerificationReport.IssueType;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Checks the layout of an archive directory and optionally reads every entry.
+ */
+final class PakFileVerifier {
+    private static final Comparator<PakFileEntry> BY_RANGE =
+            Comparator.comparingLong(PakFileEntry::getOffset).thenComparingLong(PakFileEntry::getStoredSize);
+
+    private PakFileVerifier() {
+    }
+
+    /**
+     * Verifies an archive that has not been mounted. A header or directory that cannot be parsed is reported as
+     * an error instead of failing the verification.
+     *
+     * @param checksums   whether to read and hash every entry content
+     * @param parallelism number of threads hashing the contents
+     */
+    @Nonnull
+    static PakVerificationReport verify(@Nonnull PakFile pakFile, long archiveSize, boolean checksums,
+                                        int parallelism) throws IOException {
+        try {
+            pakFile.readDirectoryRange();
+        } catch (FileFormatException | EOFException e) {
+            return malformed(pakFile, archiveSize, IssueType.MALFORMED_HEADER, e);
+        }
+        PakFileIndex index;
+        try {
+            index = pakFile.getIndex();
+        } catch (FileFormatException | EOFException e) {
+            return malformed(pakFile, archiveSize, IssueType.MALFORMED_DIRECTORY, e);
+        }
+        return verify(pakFile, index, checksums, parallelism);
+    }
+
+    @Nonnull
+    private static PakVerificationReport malformed(@Nonnull PakFile pakFile, long archiveSize, @Nonnull IssueType type,
+                                                   @Nonnull IOException e) {
+        Issue issue = new Issue(type, null, null, 0, 0, String.valueOf(e.getMessage()));
+        return new PakVerificationReport(pakFile.getName(), archiveSize, 0, Collections.singletonList(issue),
+                Collections.emptyMap());
+    }
+
+    /**
+     * Sorts the records by offset and sweeps them once, so that every range is compared only with the
+     * furthest reaching range before it, the previous range for an exact duplicate, and the header and directory
+     * of the archive.
+     *
+     * @param checksums   whether to read and hash every entry content
+     * @param parallelism number of threads hashing the contents
+     */
+    @Nonnull
+    static PakVerificationReport verify(@Nonnull PakFile pakFile, @Nonnull PakFileIndex index, boolean checksums,
+                                        int parallelism) throws IOException {
+        long archiveSize = index.getSignature().getSize();
+        List<Issue> issues = new ArrayList<>();
+
+        Set<String> names = new HashSet<>();
+        for (PakFileEntry entry : index.records()) {
+            if (!names.add(entry.getName())) {
+                issues.add(issue(IssueType.DUPLICATE_NAME, entry, null, "Name is used by an earlier record"));
+            }
+        }
+
+        long[] directory = pakFile.readDirectoryRange();
+        long directoryEnd = directory[0] + directory[1];
+
+        List<PakFileEntry> sorted = new ArrayList<>(index.records());
+        sorted.sort(BY_RANGE);
+        PakFileEntry furthest = null;
+        PakFileEntry previous = null;
+        for (PakFileEntry entry : sorted) {
+            long end = entry.getOffset() + entry.getStoredSize();
+            if (end > archiveSize) {
+                issues.add(issue(IssueType.OUT_OF_RANGE, entry, null, "Data ends at " + end + " beyond the archive size"));
+            }
+            if (entry.getStoredSize() == 0) {
+                continue;
+            }
+            if (entry.getOffset() < PakDirectoryReader.HEADER_SIZE) {
+                issues.add(issue(IssueType.OVERLAP, entry, null, "Data overlaps the archive header"));
+            }
+            if (entry.getOffset() < directoryEnd && end > directory[0] && directory[1] > 0) {
+                issues.add(issue(IssueType.OVERLAP, entry, null, "Data overlaps the directory"));
+            }
+            if (previous != null && entry.getOffset() == previous.getOffset()
+                    && entry.getStoredSize() == previous.getStoredSize()) {
+                issues.add(issue(IssueType.DUPLICATE_RANGE, entry, previous.getName(), "Data is shared"));
+            } else if (furthest != null && entry.getOffset() < furthest.getOffset() + furthest.getStoredSize()) {
+                issues.add(issue(IssueType.OVERLAP, entry, furthest.getName(), "Data overlaps"));
+            }
+            previous = entry;
+            if (furthest == null || end > furthest.getOffset() + furthest.getStoredSize()) {
+                furthest = entry;
+            }
+        }
+
+        Map<String, String> contentHashes = checksums
+                ? contentHashes(pakFile, index, parallelism, issues)
+                : Collections.emptyMap();
+        issues.sort(Comparator.comparingLong(Issue::getOffset));
+
+        return new PakVerificationReport(pakFile.getName(), archiveSize, index.records().size(),
+                Collections.unmodifiableList(issues), contentHashes);
+    }
+
+    /**
+     * Hashes the reachable entries in as many chunks as there are threads, each chunk in offset order so that
+     * every thread reads the archive sequentially.
+     */
+    @Nonnull
+    @SuppressWarnings("try")
+    private static Map<String, String> contentHashes(@Nonnull PakFile pakFile, @Nonnull PakFileIndex index,
+                                                     int parallelism, @Nonnull List<Issue> issues) throws IOException {
+        List<PakFileEntry> entries = new ArrayList<>(index.entries());
+        entries.sort(BY_RANGE);
+        int chunkSize = Math.max(1, (entries.size() + parallelism - 1) / parallelism);
+
+        ExecutorService executor = PakThreads.newBlockingExecutor("pak-fs-verify");
+        try (PakIoScheduler.Reservation ignored = pakFile.reserveIo(PakIoPriority.BULK, parallelism)) {
+            List<Future<List<Object>>> chunks = new ArrayList<>();
+            for (int start = 0; start < entries.size(); start += chunkSize) {
+                List<PakFileEntry> chunk = entries.subList(start, Math.min(entries.size(), start + chunkSize));
+                chunks.add(executor.submit(() -> {
+                    List<Object> results = new ArrayList<>(chunk.size());
+                    for (PakFileEntry entry : chunk) {
+                        try {
+                            String hash = pakFile.computeContentHash(entry, PakIoPriority.BULK);
+                            index.getContentHashes().put(entry, hash);
+                            results.add(hash);
+                        } catch (IOException | RuntimeException e) {
+                            results.add(issue(IssueType.UNREADABLE, entry, null, String.valueOf(e.getMessage())));
+                        }
+                    }
+                    return results;
+                }));
+            }
+
+            Map<String, String> hashes = new LinkedHashMap<>();
+            int i = 0;
+            for (Future<List<Object>> chunk : chunks) {
+                for (Object result : chunk.get()) {
+                    PakFileEntry entry = entries.get(i++);
+                    if (result instanceof Issue) {
+                        issues.add((Issue) result);
+                    } else {
+                        hashes.put(entry.getName(), (String) result);
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(hashes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Verification interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nonnull
+    private static Issue issue(@Nonnull IssueType type, @Nonnull PakFileEntry entry, String otherName, @Nonnull String message) {
+        return new Issue(type, entry.getName(), otherName, entry.getOffset(), entry.getStoredSize(), message);
+    }
+}
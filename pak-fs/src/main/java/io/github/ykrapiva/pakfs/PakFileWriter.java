@@ -0,0 +1,187 @@
+package io.github.ykrapiva.pakfs;
+
+import com.google.common.io.ByteStreams;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Writes PAK archives, either in the plain Quake layout or in the extended layout with every entry split into
+ * Deflate compressed blocks that can be read at random. Entries that do not get smaller are stored as is.
+ * <pre>
+ * try (PakFileWriter writer = PakFileWriter.createBlockCompressed(path, PakFileWriter.DEFAULT_BLOCK_SIZE)) {
+ *     writer.write("maps/level1.bsp", bytes);
+ * }
+ * </pre>
+ * Archives of both layouts are read by the {@code pak} file system provider.
+ */
+public final class PakFileWriter implements Closeable {
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    /**
+     * Offsets are stored as unsigned 32-bit numbers.
+     */
+    private static final long MAX_ARCHIVE_SIZE = 0xFFFF_FFFFL;
+
+    private final FileChannel channel;
+    /**
+     * Uncompressed block size, {@code 0} for the plain layout.
+     */
+    private final int blockSize;
+    private final List<PakFileEntry> entries = new ArrayList<>();
+    private final Deflater deflater;
+    private long position = PakDirectoryReader.HEADER_SIZE;
+    private boolean closed;
+
+    private PakFileWriter(@Nonnull Path path, int blockSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.blockSize = blockSize;
+        this.deflater = blockSize > 0 ? new Deflater(Deflater.BEST_COMPRESSION) : null;
+    }
+
+    /**
+     * Creates an archive in the plain Quake layout, replacing an existing file.
+     */
+    @Nonnull
+    public static PakFileWriter create(@Nonnull Path path) throws IOException {
+        return new PakFileWriter(path, 0);
+    }
+
+    /**
+     * Creates an archive in the extended block compressed layout, replacing an existing file.
+     *
+     * @param blockSize number of uncompressed bytes per block, the unit of decompression on reads
+     */
+    @Nonnull
+    public static PakFileWriter createBlockCompressed(@Nonnull Path path, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        return new PakFileWriter(path, blockSize);
+    }
+
+    /**
+     * Appends an entry.
+     *
+     * @param name entry name, at most 55 bytes in UTF-8
+     */
+    public void write(@Nonnull String name, @Nonnull byte[] content) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length >= PakDirectoryReader.NAME_SIZE) {
+            throw new IllegalArgumentException("Entry name is too long: " + name);
+        }
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        if (position + content.length > MAX_ARCHIVE_SIZE) {
+            throw new IOException("Archive would exceed " + MAX_ARCHIVE_SIZE + " bytes");
+        }
+
+        long offset = position;
+        if (blockSize > 0) {
+            long storedSize = writeBlocks(content, offset);
+            if (storedSize < content.length) {
+                position += storedSize;
+                entries.add(new PakFileEntry(name, offset, content.length, storedSize, PakEntryCodecs.DEFLATE_BLOCKS));
+                return;
+            }
+            // Drop the compressed copy, the part past the stored one would be left in the file
+            channel.truncate(offset);
+        }
+        writeFully(ByteBuffer.wrap(content), offset);
+        position += content.length;
+        entries.add(new PakFileEntry(name, offset, content.length));
+    }
+
+    /**
+     * Appends an entry with the content of the stream.
+     */
+    public void write(@Nonnull String name, @Nonnull InputStream content) throws IOException {
+        write(name, ByteStreams.toByteArray(content));
+    }
+
+    /**
+     * Writes the block table and the compressed blocks at the offset.
+     *
+     * @return number of bytes written
+     */
+    private long writeBlocks(@Nonnull byte[] content, long offset) throws IOException {
+        int count = (content.length + blockSize - 1) / blockSize;
+        ByteBuffer table = ByteBuffer.allocate(8 + (count + 1) * 4).order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(blockSize).putInt(count);
+
+        long blockOffset = table.capacity();
+        byte[] compressed = new byte[blockSize + blockSize / 8 + 64];
+        for (int block = 0; block < count; block++) {
+            table.putInt((int) blockOffset);
+            int start = block * blockSize;
+            deflater.reset();
+            deflater.setInput(content, start, Math.min(blockSize, content.length - start));
+            deflater.finish();
+            while (!deflater.finished()) {
+                int length = deflater.deflate(compressed);
+                writeFully(ByteBuffer.wrap(compressed, 0, length), offset + blockOffset);
+                blockOffset += length;
+            }
+        }
+        table.putInt((int) blockOffset).flip();
+        writeFully(table, offset);
+        return blockOffset;
+    }
+
+    private void writeFully(@Nonnull ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    /**
+     * Writes the directory and the header and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            int recordSize = blockSize > 0 ? PakDirectoryReader.EXTENDED_RECORD_SIZE : PakDirectoryReader.QUAKE_RECORD_SIZE;
+            ByteBuffer directory = ByteBuffer.allocate(entries.size() * recordSize).order(ByteOrder.LITTLE_ENDIAN);
+            for (PakFileEntry entry : entries) {
+                int record = directory.position();
+                directory.put(entry.getName().getBytes(StandardCharsets.UTF_8));
+                directory.position(record + PakDirectoryReader.NAME_SIZE);
+                directory.putInt((int) entry.getOffset());
+                directory.putInt((int) entry.getSize());
+                if (blockSize > 0) {
+                    directory.putInt((int) entry.getStoredSize());
+                    directory.putInt(PakEntryCodecs.methodOf(entry.getCodec()));
+                }
+            }
+            directory.flip();
+            writeFully(directory, position);
+
+            ByteBuffer header = ByteBuffer.allocate(PakDirectoryReader.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            String id = blockSize > 0 ? PakDirectoryReader.EXTENDED_IDENTIFIER : PakDirectoryReader.IDENTIFIER;
+            header.put(id.getBytes(StandardCharsets.US_ASCII));
+            header.putInt((int) position).putInt(directory.capacity()).flip();
+            writeFully(header, 0);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            channel.close();
+        }
+    }
+}
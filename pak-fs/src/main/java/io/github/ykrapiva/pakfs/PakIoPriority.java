@@ -0,0 +1,19 @@
+package io.github.ykrapiva.pakfs;
+
+/**
+ * Priority classes of archive reads, see {@link PakIoScheduler}.
+ */
+enum PakIoPriority {
+    /**
+     * Reads a caller waits for, such as entry channel reads. Never queued.
+     */
+    INTERACTIVE,
+    /**
+     * Reads ahead of use, such as warm-ups and access profile replays.
+     */
+    PREFETCH,
+    /**
+     * Reads of whole archives, such as verification.
+     */
+    BULK
+}
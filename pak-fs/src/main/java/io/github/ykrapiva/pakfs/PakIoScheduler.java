@@ -0,0 +1,461 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Orders the archive reads of a provider by priority. Interactive reads run right away on the calling thread.
+ * Background reads are queued by priority class, each queue bounded so that a flood of background work blocks
+ * its producers instead of piling up, and are run by the threads that issued them:
+ * <ul>
+ * <li>each priority class runs as many reads at a time as the operations reading in it have reserved with
+ * {@link #reserve}, and one without a reservation</li>
+ * <li>while interactive reads are in flight, background reads wait, and bulk reads also wait while prefetch
+ * reads are queued or running, for at most {@link #MAX_DEFERRAL_NANOS} at a time so that a busy foreground
+ * does not starve them completely</li>
+ * <li>queued reads of the same source that continue one another are merged into one read of at most
+ * {@link #MAX_COALESCED_BYTES}, run by whichever of their threads takes them first</li>
+ * <li>the background bandwidth is capped if a rate is set</li>
+ * </ul>
+ */
+class PakIoScheduler {
+    static final String BACKGROUND_RATE_PROPERTY = "io.github.ykrapiva.pakfs.backgroundIoRate";
+    static final int QUEUE_CAPACITY = 64;
+    static final int MAX_COALESCED_BYTES = 1024 * 1024;
+    static final long MAX_DEFERRAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final long maxDeferralNanos;
+    private final AtomicInteger interactiveReads = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled when a background read is queued, taken or completed, when a reservation changes and when the
+     * last interactive read completes.
+     */
+    private final Condition workAvailable = lock.newCondition();
+    /**
+     * Signalled when a queued read is taken.
+     */
+    private final Condition spaceAvailable = lock.newCondition();
+    private final List<PriorityClass> classes = new ArrayList<>();
+    private volatile long backgroundBytesPerSecond;
+    /**
+     * Time the bandwidth cap allows the next background read at.
+     */
+    private long nextReadTime = System.nanoTime(); // guarded by lock
+
+    PakIoScheduler() {
+        this(Long.getLong(BACKGROUND_RATE_PROPERTY, 0));
+    }
+
+    PakIoScheduler(long backgroundBytesPerSecond) {
+        this(backgroundBytesPerSecond, MAX_DEFERRAL_NANOS);
+    }
+
+    /**
+     * @param maxDeferralNanos longest time a background read waits for reads of higher priority at a time
+     */
+    PakIoScheduler(long backgroundBytesPerSecond, long maxDeferralNanos) {
+        setBackgroundRate(backgroundBytesPerSecond);
+        this.maxDeferralNanos = maxDeferralNanos;
+        for (int i = 0; i < PakIoPriority.values().length; i++) {
+            classes.add(new PriorityClass());
+        }
+    }
+
+    /**
+     * @param bytesPerSecond maximum number of bytes per second of background reads, {@code 0} for no limit
+     */
+    void setBackgroundRate(long bytesPerSecond) {
+        if (bytesPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid rate: " + bytesPerSecond);
+        }
+        this.backgroundBytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Lets an operation run up to the given number of reads of a priority class at a time, until the returned
+     * reservation is closed. Reservations of concurrent operations add up.
+     */
+    @Nonnull
+    Reservation reserve(@Nonnull PakIoPriority priority, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+        }
+        PriorityClass priorityClass = classes.get(priority.ordinal());
+        lock.lock();
+        try {
+            priorityClass.reserved += parallelism;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return new Reservation(priorityClass, parallelism);
+    }
+
+    int read(@Nonnull PakByteSource source, @Nonnull ByteBuffer dst, long position, @Nonnull PakIoPriority priority)
+            throws IOException {
+        if (priority == PakIoPriority.INTERACTIVE) {
+            return readInteractive(source, dst, position);
+        }
+
+        PriorityClass priorityClass = classes.get(priority.ordinal());
+        Request request = new Request(source, dst, position);
+        try {
+            enqueue(priorityClass, request);
+            runUntilTaken(priority, priorityClass, request);
+            return request.await();
+        } catch (InterruptedException e) {
+            dequeue(priorityClass, request);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a background read");
+        }
+    }
+
+    private int readInteractive(@Nonnull PakByteSource source, @Nonnull ByteBuffer dst, long position) throws IOException {
+        interactiveReads.incrementAndGet();
+        try {
+            return source.read(dst, position);
+        } finally {
+            if (interactiveReads.decrementAndGet() == 0) {
+                lock.lock();
+                try {
+                    workAvailable.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    private void enqueue(@Nonnull PriorityClass priorityClass, @Nonnull Request request) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (priorityClass.queue.size() >= QUEUE_CAPACITY) {
+                spaceAvailable.await();
+            }
+            priorityClass.queue.add(request);
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dequeue(@Nonnull PriorityClass priorityClass, @Nonnull Request request) {
+        lock.lock();
+        try {
+            if (priorityClass.queue.remove(request)) {
+                spaceAvailable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs queued reads of the class on the calling thread until the request has been taken, by this thread or
+     * by another one merging it into its read.
+     */
+    private void runUntilTaken(@Nonnull PakIoPriority priority, @Nonnull PriorityClass priorityClass,
+                               @Nonnull Request request) throws InterruptedException {
+        while (true) {
+            List<Request> batch = nextBatch(priority, priorityClass, request);
+            if (batch == null) {
+                return;
+            }
+            try {
+                throttle(batch);
+                run(batch);
+            } catch (InterruptedException e) {
+                fail(batch, new InterruptedIOException("Background read interrupted"));
+                throw e;
+            } catch (IOException | RuntimeException e) {
+                fail(batch, e);
+            } finally {
+                finished(priorityClass);
+            }
+        }
+    }
+
+    /**
+     * Waits for a free slot of the class and for reads of higher priority to complete, then takes the head of
+     * the queue together with the queued reads continuing it.
+     *
+     * @param request read of the calling thread
+     * @return reads in position order or {@code null} if the request has been taken
+     */
+    @Nullable
+    private List<Request> nextBatch(@Nonnull PakIoPriority priority, @Nonnull PriorityClass priorityClass,
+                                    @Nonnull Request request) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long deadline = System.nanoTime() + maxDeferralNanos;
+            while (true) {
+                if (request.taken) {
+                    return null;
+                }
+                if (priorityClass.running < priorityClass.limit()) {
+                    long delay = deadline - System.nanoTime();
+                    if (delay <= 0 || !isDeferred(priority)) {
+                        break;
+                    }
+                    workAvailable.awaitNanos(delay);
+                } else {
+                    workAvailable.await();
+                }
+            }
+
+            ArrayDeque<Request> queue = priorityClass.queue;
+            Request head = queue.poll();
+            List<Request> batch = new ArrayList<>();
+            batch.add(head);
+            head.taken = true;
+            long end = head.end();
+            long length = head.length;
+            boolean merged = true;
+            while (merged && length < MAX_COALESCED_BYTES) {
+                merged = false;
+                for (Iterator<Request> it = queue.iterator(); it.hasNext(); ) {
+                    Request next = it.next();
+                    if (next.source == head.source && next.position == end
+                            && length + next.length <= MAX_COALESCED_BYTES) {
+                        it.remove();
+                        next.taken = true;
+                        batch.add(next);
+                        end = next.end();
+                        length += next.length;
+                        merged = true;
+                    }
+                }
+            }
+            priorityClass.running++;
+            spaceAvailable.signalAll();
+            workAvailable.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return whether reads of higher priority than the class are in flight or queued
+     */
+    private boolean isDeferred(@Nonnull PakIoPriority priority) {
+        if (interactiveReads.get() > 0) {
+            return true;
+        }
+        for (int i = PakIoPriority.INTERACTIVE.ordinal() + 1; i < priority.ordinal(); i++) {
+            PriorityClass higher = classes.get(i);
+            if (higher.running > 0 || !higher.queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void finished(@Nonnull PriorityClass priorityClass) {
+        lock.lock();
+        try {
+            priorityClass.running--;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Number of background reads waiting in the queues.
+     */
+    int queuedReads() {
+        lock.lock();
+        try {
+            int count = 0;
+            for (PriorityClass priorityClass : classes) {
+                count += priorityClass.queue.size();
+            }
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void throttle(@Nonnull List<Request> batch) throws InterruptedException {
+        long bytes = 0;
+        for (Request request : batch) {
+            bytes += request.length;
+        }
+        long now = System.nanoTime();
+        long delay = scheduleRead(bytes, now) - now;
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    /**
+     * Reserves bandwidth for a background read of the given size.
+     *
+     * @param now current {@link System#nanoTime()}
+     * @return time the read may start at
+     */
+    long scheduleRead(long bytes, long now) {
+        long bytesPerSecond = backgroundBytesPerSecond;
+        lock.lock();
+        try {
+            if (bytesPerSecond <= 0) {
+                nextReadTime = now;
+                return now;
+            }
+            long startTime = nextReadTime - now > 0 ? nextReadTime : now;
+            nextReadTime = startTime + (long) (bytes * 1e9 / bytesPerSecond);
+            return startTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads a single request straight into its buffer, and merged requests into one buffer that is then
+     * copied into theirs.
+     */
+    private static void run(@Nonnull List<Request> batch) throws IOException {
+        Request first = batch.get(0);
+        if (batch.size() == 1) {
+            first.complete(first.source.read(first.dst, first.position));
+            return;
+        }
+
+        long length = 0;
+        for (Request request : batch) {
+            length += request.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = first.source.read(buffer, first.position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        buffer.flip();
+
+        for (Request request : batch) {
+            int offset = (int) (request.position - first.position);
+            if (offset >= total) {
+                request.complete(-1);
+                continue;
+            }
+            ByteBuffer part = buffer.duplicate();
+            part.position(offset).limit(Math.min(total, offset + request.length));
+            int read = part.remaining();
+            request.dst.put(part);
+            request.complete(read);
+        }
+    }
+
+    private static void fail(@Nonnull List<Request> batch, @Nonnull Exception e) {
+        for (Request request : batch) {
+            request.fail(e);
+        }
+    }
+
+    /**
+     * Concurrency limit of an operation reading in a priority class, see {@link #reserve}.
+     */
+    final class Reservation implements AutoCloseable {
+        private final PriorityClass priorityClass;
+        private final int parallelism;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Reservation(@Nonnull PriorityClass priorityClass, int parallelism) {
+            this.priorityClass = priorityClass;
+            this.parallelism = parallelism;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                lock.lock();
+                try {
+                    priorityClass.reserved -= parallelism;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue and concurrency of one priority class, guarded by the lock.
+     */
+    private static final class PriorityClass {
+        final ArrayDeque<Request> queue = new ArrayDeque<>();
+        int running;
+        int reserved;
+
+        int limit() {
+            return Math.max(1, reserved);
+        }
+    }
+
+    /**
+     * Queued read. Waiting on a latch rather than a monitor keeps virtual threads from pinning their carrier.
+     */
+    private static final class Request {
+        final PakByteSource source;
+        final ByteBuffer dst;
+        final long position;
+        final int length;
+        /**
+         * Whether a thread has taken the read from the queue to run it, guarded by the lock.
+         */
+        boolean taken;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile int result;
+        private volatile Exception failure;
+
+        Request(PakByteSource source, ByteBuffer dst, long position) {
+            this.source = source;
+            this.dst = dst;
+            this.position = position;
+            this.length = dst.remaining();
+        }
+
+        long end() {
+            return position + length;
+        }
+
+        void complete(int result) {
+            this.result = result;
+            done.countDown();
+        }
+
+        void fail(@Nonnull Exception failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        int await() throws IOException, InterruptedException {
+            done.await();
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.ykrapiva.pakfs;
+
+/**
+ * Order in which the root directory of a {@link PakFileSystem} lists its entries, chosen with the
+ * {@code iterationOrder} option.
+ */
+public enum PakIterationOrder {
+    /**
+     * Order of the archive directory, the default.
+     */
+    DIRECTORY,
+    /**
+     * Order of the entry data in the archive, so that reading every listed entry reads the archive sequentially.
+     */
+    OFFSET,
+    /**
+     * Lexicographic order of the entry names.
+     */
+    NAME
+}
@@ -0,0 +1,242 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Open addressing hash table with linear probing from names to their ordinals in a list. Of duplicated names
+ * the smallest ordinal is kept, so a table built by many threads at once finds the first of them, like a
+ * sequential build. Every slot packs the hash of the name and its ordinal into one long, which a thread
+ * installs with one compare-and-set.
+ * <p>
+ * A case-insensitive table hashes names with ASCII letters folded to lower case and compares them folding
+ * both sides on the fly, like the original engines.
+ */
+final class PakNameTable {
+    private final List<String> names;
+    private final boolean caseInsensitive;
+    /**
+     * Hash of the name in the high half and ordinal plus one in the low half, {@code 0} for an empty slot.
+     */
+    private final long[] slots;
+    private final int mask;
+
+    private PakNameTable(@Nonnull List<String> names, boolean caseInsensitive, @Nonnull long[] slots) {
+        this.names = names;
+        this.caseInsensitive = caseInsensitive;
+        this.slots = slots;
+        this.mask = slots.length - 1;
+    }
+
+    /**
+     * @param names random access list of the names, indexed on the pool if it is huge, see
+     *              {@link PakExecutors#forEach}
+     */
+    @Nonnull
+    static PakNameTable build(@Nonnull List<String> names, boolean caseInsensitive, @Nonnull ForkJoinPool pool) {
+        PakNameTable table = new PakNameTable(names, caseInsensitive, new long[tableSizeFor(names.size())]);
+        if (!PakExecutors.isParallel(names.size(), pool)) {
+            for (int ordinal = 0; ordinal < names.size(); ordinal++) {
+                table.insert(ordinal);
+            }
+            return table;
+        }
+        AtomicLongArray slots = new AtomicLongArray(table.slots.length);
+        PakExecutors.forEach(names.size(), pool, ordinal -> table.insert(slots, ordinal));
+        for (int i = 0; i < table.slots.length; i++) {
+            table.slots[i] = slots.get(i);
+        }
+        return table;
+    }
+
+    /**
+     * Inserts a name by one thread, the ordinals ascending.
+     */
+    private void insert(int ordinal) {
+        String name = names.get(ordinal);
+        int hash = hash(name);
+        int slot = spread(hash) & mask;
+        while (slots[slot] != 0) {
+            if (hashOf(slots[slot]) == hash && equals(names.get(ordinalOf(slots[slot])), name)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = (long) hash << 32 | ordinal + 1;
+    }
+
+    /**
+     * Inserts a name by one of many threads, the ordinals in any order.
+     */
+    private void insert(@Nonnull AtomicLongArray slots, int ordinal) {
+        String name = names.get(ordinal);
+        int hash = hash(name);
+        long value = (long) hash << 32 | ordinal + 1;
+        int slot = spread(hash) & mask;
+        while (true) {
+            long current = slots.get(slot);
+            if (current == 0) {
+                if (slots.compareAndSet(slot, 0, value)) {
+                    return;
+                }
+            } else if (hashOf(current) == hash && equals(names.get(ordinalOf(current)), name)) {
+                if (ordinalOf(current) < ordinal || slots.compareAndSet(slot, current, value)) {
+                    return;
+                }
+            } else {
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    /**
+     * Returns the table of the names at new ordinals, e.g. after duplicates have been dropped from the list.
+     *
+     * @param newOrdinals new ordinal of every name found in this table, by its current ordinal
+     */
+    @Nonnull
+    PakNameTable renumber(@Nonnull List<String> newNames, @Nonnull int[] newOrdinals) {
+        long[] newSlots = new long[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            long slot = slots[i];
+            if (slot != 0) {
+                newSlots[i] = slot & 0xffffffff00000000L | newOrdinals[ordinalOf(slot)] + 1;
+            }
+        }
+        return new PakNameTable(newNames, caseInsensitive, newSlots);
+    }
+
+    /**
+     * Returns the table of the same names at the same ordinals in another list.
+     */
+    @Nonnull
+    PakNameTable renumber(@Nonnull List<String> newNames) {
+        return new PakNameTable(newNames, caseInsensitive, slots);
+    }
+
+    /**
+     * Marks the ordinals found in this table, one per distinct name.
+     */
+    @Nonnull
+    boolean[] foundOrdinals() {
+        boolean[] found = new boolean[names.size()];
+        for (long slot : slots) {
+            if (slot != 0) {
+                found[ordinalOf(slot)] = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return ordinal of the name, {@code -1} if it is absent
+     */
+    int get(@Nonnull String name) {
+        int hash = hash(name);
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            long value = slots[slot];
+            if (value == 0) {
+                return -1;
+            }
+            if (hashOf(value) == hash && equals(names.get(ordinalOf(value)), name)) {
+                return ordinalOf(value);
+            }
+        }
+    }
+
+    /**
+     * Looks up the name {@code parent + "/" + child} without concatenating it.
+     *
+     * @return ordinal of the name, {@code -1} if it is absent
+     */
+    int get(@Nonnull String parent, @Nonnull String child) {
+        int hash = caseInsensitive ? foldedHash(parent, 0) : parent.hashCode();
+        hash = 31 * hash + PakFileSystem.SEPARATOR_CHAR;
+        hash = caseInsensitive ? foldedHash(child, hash) : continuedHash(child, hash);
+
+        int length = parent.length() + 1 + child.length();
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            long value = slots[slot];
+            if (value == 0) {
+                return -1;
+            }
+            if (hashOf(value) == hash) {
+                String name = names.get(ordinalOf(value));
+                if (name.length() == length
+                        && regionMatches(name, 0, parent, caseInsensitive)
+                        && name.charAt(parent.length()) == PakFileSystem.SEPARATOR_CHAR
+                        && regionMatches(name, parent.length() + 1, child, caseInsensitive)) {
+                    return ordinalOf(value);
+                }
+            }
+        }
+    }
+
+    private boolean equals(@Nonnull String a, @Nonnull String b) {
+        return caseInsensitive ? a.length() == b.length() && regionMatches(a, 0, b, true) : a.equals(b);
+    }
+
+    private int hash(@Nonnull String name) {
+        return caseInsensitive ? foldedHash(name, 0) : name.hashCode();
+    }
+
+    private static int hashOf(long slot) {
+        return (int) (slot >>> 32);
+    }
+
+    private static int ordinalOf(long slot) {
+        return (int) slot - 1;
+    }
+
+    /**
+     * Continues {@link String#hashCode()} of a prefix with the characters of the string.
+     */
+    private static int continuedHash(@Nonnull String s, int hash) {
+        for (int i = 0; i < s.length(); i++) {
+            hash = 31 * hash + s.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Continues the hash of a prefix with the characters of the string, ASCII letters folded to lower case.
+     */
+    private static int foldedHash(@Nonnull String s, int hash) {
+        for (int i = 0; i < s.length(); i++) {
+            hash = 31 * hash + toLowerCase(s.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * Tells whether the string occurs in the name at the offset, ignoring the case of ASCII letters or not.
+     */
+    private static boolean regionMatches(@Nonnull String name, int offset, @Nonnull String s, boolean ignoreCase) {
+        if (!ignoreCase) {
+            return name.regionMatches(offset, s, 0, s.length());
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (toLowerCase(name.charAt(offset + i)) != toLowerCase(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * @return power of two table size keeping the load factor at or below one half
+     */
+    private static int tableSizeFor(int size) {
+        return Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+    }
+}
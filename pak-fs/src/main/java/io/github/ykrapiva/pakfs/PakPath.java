@@ -0,0 +1,274 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.LinkOption;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent.Kind;
+import java.nio.file.WatchEvent.Modifier;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.Iterator;
+
+/**
+ * Path of a PAK archive entry. Entry names are not split into directories, so an entry path consists of a single
+ * name and its parent is the root directory of the archive.
+ */
+public class PakPath implements Path {
+    public static final String ROOT = "/";
+
+    final PakFileSystem fileSystem;
+    final String entryPath;
+    /**
+     * Index entry of this path, set by directory iteration or the first successful lookup.
+     */
+    @Nullable
+    volatile Resolution resolution;
+    private int hash;
+    /**
+     * URI of this path, built on first use. Volatile because the fields of {@link URI} are not final.
+     */
+    private volatile URI uri;
+
+    PakPath(@Nonnull PakFileSystem fileSystem) {
+        this(fileSystem, ROOT);
+    }
+
+    PakPath(@Nonnull PakFileSystem fileSystem, @Nonnull String entryPath) {
+        this.fileSystem = fileSystem;
+        this.entryPath = entryPath;
+    }
+
+    PakPath(@Nonnull PakFileSystem fileSystem, @Nonnull PakFileIndex index, @Nonnull PakFileEntry entry) {
+        this(fileSystem, entry.getName());
+        this.resolution = new Resolution(index, entry);
+    }
+
+    @Override
+    public FileSystem getFileSystem() {
+        return fileSystem;
+    }
+
+    @Override
+    public boolean isAbsolute() {
+        return true;
+    }
+
+    @Override
+    public Path getRoot() {
+        if (isRoot()) {
+            return null;
+        }
+        return fileSystem.rootPath;
+    }
+
+    /**
+     * @return this path, or {@code null} for the root, which has no file name
+     */
+    @Override
+    public Path getFileName() {
+        return isRoot() ? null : this;
+    }
+
+    @Override
+    public Path getParent() {
+        return getRoot();
+    }
+
+    @Override
+    public int getNameCount() {
+        return 1;
+    }
+
+    @Override
+    public Path getName(int index) {
+        if (index != 0) {
+            throw new IllegalArgumentException("Index must be 0");
+        }
+        return this;
+    }
+
+    @Override
+    public Path subpath(int beginIndex, int endIndex) {
+        throw new IllegalArgumentException("Sub paths not supported");
+    }
+
+    @Override
+    public boolean startsWith(@Nonnull Path other) {
+        return startsWith(other instanceof PakPath ? ((PakPath) other).entryPath : other.toString());
+    }
+
+    @Override
+    public boolean startsWith(@Nonnull String other) {
+        return entryPath.startsWith(other);
+    }
+
+    @Override
+    public boolean endsWith(@Nonnull Path other) {
+        return endsWith(other instanceof PakPath ? ((PakPath) other).entryPath : other.toString());
+    }
+
+    @Override
+    public boolean endsWith(@Nonnull String other) {
+        return entryPath.endsWith(other);
+    }
+
+    @Override
+    public Path normalize() {
+        return this;
+    }
+
+    @Override
+    public Path resolve(Path other) {
+        if (isRoot() && other instanceof PakPath && ((PakPath) other).fileSystem == fileSystem) {
+            return other;
+        }
+        return resolve(other.toString());
+    }
+
+    @Override
+    public Path resolve(@Nonnull String other) {
+        return isRoot() ? fileSystem.getEntryPath(other) : fileSystem.getEntryPath(entryPath, other);
+    }
+
+    @Override
+    public Path resolveSibling(@Nonnull Path other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Path resolveSibling(@Nonnull String other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Path relativize(@Nonnull Path other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public URI toUri() {
+        URI result = uri;
+        if (result == null) {
+            URI fileSystemUri = fileSystem.uri;
+            String archive = PakFileSystemProvider.SOURCE_SCHEME.equals(fileSystemUri.getScheme())
+                    ? fileSystemUri.toString()
+                    : fileSystemUri.getSchemeSpecificPart();
+            result = URI.create(fileSystem.provider.getScheme() + ":" + archive + (isRoot() ? "" : "!" + entryPath));
+            uri = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Path toAbsolutePath() {
+        return this;
+    }
+
+    @Override
+    public Path toRealPath(@Nonnull LinkOption... options) {
+        return this;
+    }
+
+    @Override
+    public File toFile() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public WatchKey register(@Nonnull WatchService watcher, @Nonnull Kind<?>[] events, Modifier... modifiers) throws IOException {
+        if (!(watcher instanceof PakWatchService)) {
+            throw new ProviderMismatchException();
+        }
+        if (!isRoot()) {
+            throw new NotDirectoryException(entryPath);
+        }
+        return ((PakWatchService) watcher).register(this, events);
+    }
+
+    @Override
+    public WatchKey register(@Nonnull WatchService watcher, @Nonnull Kind<?>... events) throws IOException {
+        return register(watcher, events, new Modifier[0]);
+    }
+
+    @Override
+    public Iterator<Path> iterator() {
+        return Collections.<Path>singleton(this).iterator();
+    }
+
+    @Override
+    public int compareTo(@Nonnull Path other) {
+        return entryPath.compareTo(other instanceof PakPath ? ((PakPath) other).entryPath : other.toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PakPath)) {
+            return false;
+        }
+        PakPath other = (PakPath) o;
+        return hashCode() == other.hashCode()
+                && entryPath.equals(other.entryPath)
+                && fileSystem.equals(other.fileSystem);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = 31 * fileSystem.hashCode() + entryPath.hashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return entryPath;
+    }
+
+    boolean isRoot() {
+        return entryPath.equals(ROOT);
+    }
+
+    @Nonnull
+    PakPathAttributes readAttributes() throws IOException {
+        return fileSystem.readAttributes(this);
+    }
+
+    boolean exists() {
+        return fileSystem.exists(this);
+    }
+
+    @Nonnull
+    PakFileEntryChannel newReadOnlyChannel() throws IOException {
+        return fileSystem.newReadOnlyChannel(this);
+    }
+
+    @Nonnull
+    static PakPath get(@Nonnull Path path) {
+        return (PakPath) Paths.get(URI.create("pak:" + path));
+    }
+
+    /**
+     * Entry of a path within the index snapshot it was looked up in.
+     */
+    @RequiredArgsConstructor
+    static final class Resolution {
+        final PakFileIndex index;
+        final PakFileEntry entry;
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.attribute.FileTime;
+
+@RequiredArgsConstructor
+class PakPathAttributeView implements PakFileAttributeView {
+    private final PakPath path;
+    private final String name;
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public PakPathAttributes readAttributes() throws IOException {
+        return path.readAttributes();
+    }
+
+    @Override
+    public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Attributes of a path, backed by the index entry resolved when the attributes were read.
+ */
+@RequiredArgsConstructor
+class PakPathAttributes implements PakFileAttributes {
+    private static final List<String> BASIC_ATTRIBUTES = Arrays.asList(
+            "lastModifiedTime", "lastAccessTime", "creationTime", "size",
+            "isRegularFile", "isDirectory", "isSymbolicLink", "isOther", "fileKey");
+    private static final List<String> PAK_ATTRIBUTES = Arrays.asList(
+            "offset", "storedSize", "contentHash");
+    /**
+     * Attribute read only when named, as it reads the whole entry.
+     */
+    private static final String CONTENT_HASH = "contentHash";
+
+    final PakPath path;
+    /**
+     * Index snapshot the entry was found in, {@code null} for the root directory.
+     */
+    @Nullable
+    final PakFileIndex index;
+    /**
+     * Entry of the path, {@code null} for the root directory.
+     */
+    @Nullable
+    final PakFileEntry entry;
+
+    private volatile String contentHash;
+
+    @Override
+    public FileTime lastModifiedTime() {
+        return null;
+    }
+
+    @Override
+    public FileTime lastAccessTime() {
+        return null;
+    }
+
+    @Override
+    public FileTime creationTime() {
+        return null;
+    }
+
+    @Override
+    public boolean isRegularFile() {
+        return entry != null;
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return entry == null;
+    }
+
+    @Override
+    public boolean isSymbolicLink() {
+        return false;
+    }
+
+    @Override
+    public boolean isOther() {
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return entry != null ? entry.getSize() : 0;
+    }
+
+    @Override
+    public Object fileKey() {
+        return null;
+    }
+
+    @Override
+    public long offset() {
+        return entry != null ? entry.getOffset() : 0;
+    }
+
+    @Override
+    public long storedSize() {
+        return entry != null ? entry.getStoredSize() : 0;
+    }
+
+    @Override
+    public String contentHash() {
+        if (index == null || entry == null) {
+            return null;
+        }
+        String hash = contentHash;
+        if (hash == null) {
+            try {
+                contentHash = hash = path.fileSystem.pakFile.contentHash(index, entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Reads attributes by name in the format of {@link java.nio.file.Files#readAttributes(java.nio.file.Path, String, java.nio.file.LinkOption...)}.
+     *
+     * @param view       {@code "basic"} or {@code "pak"}
+     * @param attributes comma separated attribute names or {@code "*"}, which stands for all attributes but
+     *                   {@code contentHash}
+     */
+    Map<String, Object> toMap(String view, String attributes) {
+        boolean pakView = PakFileAttributeView.NAME.equals(view);
+        Map<String, Object> result = new LinkedHashMap<>();
+
+        for (String attribute : attributes.split(",")) {
+            if ("*".equals(attribute)) {
+                for (String name : BASIC_ATTRIBUTES) {
+                    result.put(name, get(name));
+                }
+                if (pakView) {
+                    for (String name : PAK_ATTRIBUTES) {
+                        if (!CONTENT_HASH.equals(name)) {
+                            result.put(name, get(name));
+                        }
+                    }
+                }
+            } else if (BASIC_ATTRIBUTES.contains(attribute) || (pakView && PAK_ATTRIBUTES.contains(attribute))) {
+                result.put(attribute, get(attribute));
+            } else {
+                throw new IllegalArgumentException("Unknown attribute: " + view + ":" + attribute);
+            }
+        }
+
+        return result;
+    }
+
+    private Object get(String attribute) {
+        switch (attribute) {
+            case "lastModifiedTime":
+                return lastModifiedTime();
+            case "lastAccessTime":
+                return lastAccessTime();
+            case "creationTime":
+                return creationTime();
+            case "size":
+                return size();
+            case "isRegularFile":
+                return isRegularFile();
+            case "isDirectory":
+                return isDirectory();
+            case "isSymbolicLink":
+                return isSymbolicLink();
+            case "isOther":
+                return isOther();
+            case "fileKey":
+                return fileKey();
+            case "offset":
+                return offset();
+            case "storedSize":
+                return storedSize();
+            case "contentHash":
+                return contentHash();
+            default:
+                throw new IllegalArgumentException("Unknown attribute: " + attribute);
+        }
+    }
+}
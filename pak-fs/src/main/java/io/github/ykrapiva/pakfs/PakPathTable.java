@@ -0,0 +1,97 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Canonical paths of the entries of one index snapshot within one file system. Paths are looked up by name,
+ * or by parent and child name without concatenating them, so resolving a known entry allocates nothing and
+ * returns a path that already carries its index entry.
+ * <p>
+ * A case-sensitive table looks names up in the name table of the index, a case-insensitive one builds its own
+ * folding the case of ASCII letters. Of names that differ only in case, the first one in directory order is
+ * found.
+ */
+final class PakPathTable {
+    final PakFileIndex index;
+    final boolean caseInsensitive;
+    /**
+     * Paths in the order of {@link PakFileIndex#entries()}.
+     */
+    private final PakPath[] paths;
+    /**
+     * Ordinals of the paths by name.
+     */
+    private final PakNameTable names;
+
+    PakPathTable(@Nonnull PakFileSystem fileSystem, @Nonnull PakFileIndex index, boolean caseInsensitive) {
+        this(fileSystem, index, caseInsensitive, PakExecutors.parallel());
+    }
+
+    /**
+     * @param pool pool creating the paths and the case-insensitive name table of huge directories, see
+     *             {@link PakExecutors#forEach}
+     */
+    PakPathTable(@Nonnull PakFileSystem fileSystem, @Nonnull PakFileIndex index, boolean caseInsensitive,
+                 @Nonnull ForkJoinPool pool) {
+        this.index = index;
+        this.caseInsensitive = caseInsensitive;
+
+        List<PakFileEntry> entries = index.entries();
+        this.paths = new PakPath[entries.size()];
+        PakExecutors.forEach(paths.length, pool, i -> paths[i] = new PakPath(fileSystem, index, entries.get(i)));
+        this.names = caseInsensitive
+                ? PakNameTable.build(PakFileIndex.names(entries), true, pool)
+                : index.getNameTable();
+    }
+
+    /**
+     * Returns the paths in the order, permuted by the order arrays of the index without sorting them again.
+     */
+    @Nonnull
+    List<PakPath> paths(@Nonnull PakIterationOrder order) {
+        switch (order) {
+            case OFFSET:
+                return permutation(index.getOffsetOrder());
+            case NAME:
+                return permutation(index.getNameOrder());
+            default:
+                return Collections.unmodifiableList(Arrays.asList(paths));
+        }
+    }
+
+    @Nonnull
+    private List<PakPath> permutation(@Nonnull int[] order) {
+        return new AbstractList<PakPath>() {
+            @Override
+            public PakPath get(int index) {
+                return paths[order[index]];
+            }
+
+            @Override
+            public int size() {
+                return order.length;
+            }
+        };
+    }
+
+    @Nullable
+    PakPath get(@Nonnull String name) {
+        int ordinal = names.get(name);
+        return ordinal >= 0 ? paths[ordinal] : null;
+    }
+
+    /**
+     * Looks up the path named {@code parent + "/" + child}.
+     */
+    @Nullable
+    PakPath get(@Nonnull String parent, @Nonnull String child) {
+        int ordinal = names.get(parent, child);
+        return ordinal >= 0 ? paths[ordinal] : null;
+    }
+}
@@ -0,0 +1,123 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caps the file descriptors and mapped bytes held by all archives of a provider. When a limit is exceeded,
+ * the least recently read archive channels are closed and mappings dropped, their next read reopens them.
+ * Channels in the middle of a read are skipped, so the limits may be exceeded for the duration of a read.
+ * <p>
+ * The mapping limit is a soft cap. Java cannot unmap a buffer deterministically, a dropped mapping is only
+ * released once it is garbage collected, and buffers returned by {@code readBuffer} keep it mapped while they
+ * are referenced.
+ */
+class PakResourceManager {
+    static final String MAX_OPEN_FILES_PROPERTY = "io.github.ykrapiva.pakfs.maxOpenFiles";
+    static final String MAX_MAPPED_BYTES_PROPERTY = "io.github.ykrapiva.pakfs.maxMappedBytes";
+    static final int DEFAULT_MAX_OPEN_FILES = 256;
+    static final long DEFAULT_MAX_MAPPED_BYTES = 16L << 30;
+
+    private final Set<SharedFileChannelSource> openChannels = new HashSet<>(); // guarded by this
+    private final Set<MappedByteSource> mappedSources = new HashSet<>(); // guarded by this
+    private int maxOpenFiles;
+    private long maxMappedBytes;
+    private long mappedBytes; // guarded by this
+
+    PakResourceManager() {
+        this(Integer.getInteger(MAX_OPEN_FILES_PROPERTY, DEFAULT_MAX_OPEN_FILES),
+                Long.getLong(MAX_MAPPED_BYTES_PROPERTY, DEFAULT_MAX_MAPPED_BYTES));
+    }
+
+    PakResourceManager(int maxOpenFiles, long maxMappedBytes) {
+        setLimits(maxOpenFiles, maxMappedBytes);
+    }
+
+    synchronized void setLimits(int maxOpenFiles, long maxMappedBytes) {
+        if (maxOpenFiles < 1 || maxMappedBytes < 0) {
+            throw new IllegalArgumentException("Invalid limits: " + maxOpenFiles + " files, " + maxMappedBytes + " bytes");
+        }
+        this.maxOpenFiles = maxOpenFiles;
+        this.maxMappedBytes = maxMappedBytes;
+        trimChannels(null);
+        trimMappings(null);
+    }
+
+    synchronized int getOpenFiles() {
+        return openChannels.size();
+    }
+
+    /**
+     * @return bytes of the mappings held by the manager, excluding dropped mappings not yet garbage collected
+     */
+    synchronized long getHeldMappedBytes() {
+        return mappedBytes;
+    }
+
+    /**
+     * Registers a channel that has just been opened and closes idle ones over the limit.
+     */
+    synchronized void opened(@Nonnull SharedFileChannelSource source) {
+        openChannels.add(source);
+        trimChannels(source);
+    }
+
+    synchronized void closed(@Nonnull SharedFileChannelSource source) {
+        openChannels.remove(source);
+    }
+
+    /**
+     * Registers a window that has just been mapped and drops mappings over the limit.
+     */
+    synchronized void mapped(@Nonnull MappedByteSource source, long bytes) {
+        mappedSources.add(source);
+        mappedBytes += bytes;
+        trimMappings(source);
+    }
+
+    /**
+     * Drops all mappings of a source that is not used anymore.
+     */
+    synchronized void unmap(@Nonnull MappedByteSource source) {
+        if (mappedSources.remove(source)) {
+            mappedBytes -= source.unmap();
+        }
+    }
+
+    private void trimChannels(SharedFileChannelSource keep) {
+        if (openChannels.size() <= maxOpenFiles) {
+            return;
+        }
+        List<SharedFileChannelSource> candidates = new ArrayList<>(openChannels);
+        candidates.remove(keep);
+        candidates.sort(Comparator.comparingLong(SharedFileChannelSource::getLastAccessTime));
+        for (SharedFileChannelSource source : candidates) {
+            if (openChannels.size() <= maxOpenFiles) {
+                return;
+            }
+            if (source.closeIfIdle()) {
+                openChannels.remove(source);
+            }
+        }
+    }
+
+    private void trimMappings(MappedByteSource keep) {
+        if (mappedBytes <= maxMappedBytes) {
+            return;
+        }
+        List<MappedByteSource> candidates = new ArrayList<>(mappedSources);
+        candidates.remove(keep);
+        candidates.sort(Comparator.comparingLong(MappedByteSource::getLastAccessTime));
+        for (MappedByteSource source : candidates) {
+            if (mappedBytes <= maxMappedBytes) {
+                return;
+            }
+            mappedSources.remove(source);
+            mappedBytes -= source.unmap();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for blocking work. This is the Java 8 version, the multi-release jar replaces it with one based on
+ * virtual threads on JDK 21 and later.
+ */
+final class PakThreads {
+    private PakThreads() {
+    }
+
+    /**
+     * @return executor starting a daemon thread for every task no idle thread is available for
+     */
+    @Nonnull
+    static ExecutorService newBlockingExecutor(@Nonnull String namePrefix) {
+        return Executors.newCachedThreadPool(PakExecutors.daemonThreadFactory(namePrefix));
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Value;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of {@link PakFileSystem#verify(boolean, int)} and {@link PakFileSystemProvider#verify}.
+ */
+@Value
+public class PakVerificationReport {
+    /**
+     * Archive file.
+     */
+    String archive;
+    long archiveSize;
+    int entryCount;
+    /**
+     * Problems found, ordered by the offset of the entry concerned.
+     */
+    List<Issue> issues;
+    /**
+     * Lowercase hexadecimal SHA-256 digests of the entry contents by entry name, empty unless checksums
+     * were requested.
+     */
+    Map<String, String> contentHashes;
+
+    /**
+     * @return {@code true} if no issue is an error
+     */
+    public boolean isValid() {
+        return issues.stream().noneMatch(issue -> issue.getType().isError());
+    }
+
+    /**
+     * @return report as a JSON object
+     */
+    @Nonnull
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"archive\":");
+        appendString(json, archive);
+        json.append(",\"archiveSize\":").append(archiveSize)
+                .append(",\"entryCount\":").append(entryCount)
+                .append(",\"valid\":").append(isValid())
+                .append(",\"issues\":[");
+        for (int i = 0; i < issues.size(); i++) {
+            Issue issue = issues.get(i);
+            json.append(i > 0 ? ",{" : "{").append("\"type\":");
+            appendString(json, issue.getType().name());
+            json.append(",\"name\":");
+            appendString(json, issue.getName());
+            json.append(",\"otherName\":");
+            appendString(json, issue.getOtherName());
+            json.append(",\"offset\":").append(issue.getOffset())
+                    .append(",\"storedSize\":").append(issue.getStoredSize())
+                    .append(",\"message\":");
+            appendString(json, issue.getMessage());
+            json.append('}');
+        }
+        json.append("],\"contentHashes\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> hash : contentHashes.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, hash.getKey());
+            json.append(':');
+            appendString(json, hash.getValue());
+        }
+        return json.append("}}").toString();
+    }
+
+    private static void appendString(@Nonnull StringBuilder json, @Nullable String s) {
+        if (s == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Problem found with an entry.
+     */
+    @Value
+    public static class Issue {
+        IssueType type;
+        /**
+         * Entry concerned, {@code null} for an issue with the archive header or directory.
+         */
+        @Nullable
+        String name;
+        /**
+         * Other entry involved in an overlap or a duplicate, {@code null} otherwise.
+         */
+        @Nullable
+        String otherName;
+        long offset;
+        long storedSize;
+        String message;
+    }
+
+    public enum IssueType {
+        /**
+         * Archive header cannot be parsed, nothing else is checked.
+         */
+        MALFORMED_HEADER(true),
+        /**
+         * Archive directory cannot be parsed, nothing else is checked.
+         */
+        MALFORMED_DIRECTORY(true),
+        /**
+         * Entry data extends beyond the end of the archive.
+         */
+        OUT_OF_RANGE(true),
+        /**
+         * Entry data partially overlaps the data of another entry, or the archive header or directory, in which
+         * case there is no other entry name.
+         */
+        OVERLAP(true),
+        /**
+         * Entry data is exactly the data of another entry. Some packers share the data of identical files.
+         */
+        DUPLICATE_RANGE(false),
+        /**
+         * Another record with the same name precedes the entry in the directory, the entry is not reachable.
+         */
+        DUPLICATE_NAME(false),
+        /**
+         * Entry content cannot be read or decompressed.
+         */
+        UNREADABLE(true);
+
+        private final boolean error;
+
+        IssueType(boolean error) {
+            this.error = error;
+        }
+
+        /**
+         * @return {@code true} if the issue makes the archive unusable, {@code false} for a suspicious but
+         * readable layout
+         */
+        public boolean isError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings the data of entries into the page cache ahead of use. The entry ranges are merged and visited in
+ * archive order, or in the given order when replaying an access profile, by large sequential reads whose bytes
+ * are discarded. The reads go through the I/O scheduler as prefetch reads, and the pace is limited so that
+ * foreground reads keep most of the disk bandwidth.
+ */
+final class PakWarmer {
+    static final int CHUNK_SIZE = 1024 * 1024;
+
+    private PakWarmer() {
+    }
+
+    /**
+     * @param ordered        whether to warm the entries in the given order instead of archive order
+     * @param bytesPerSecond maximum warm-up rate, {@code 0} for no limit
+     * @param future         future to check for cancellation
+     * @return number of bytes warmed
+     */
+    static long warm(@Nonnull PakByteSource source, @Nonnull List<PakFileEntry> entries, boolean ordered,
+                     long bytesPerSecond, @Nonnull CompletableFuture<?> future) throws IOException, InterruptedException {
+        long warmed = 0;
+        long startTime = System.nanoTime();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        for (long[] range : ordered ? orderedRanges(entries) : ranges(entries)) {
+            for (long position = range[0]; position < range[1]; ) {
+                if (future.isDone()) {
+                    throw new CancellationException();
+                }
+                int length = (int) Math.min(CHUNK_SIZE, range[1] - position);
+                int touched = read(source, buffer, position, length);
+                if (touched <= 0) {
+                    break;
+                }
+                position += touched;
+                warmed += touched;
+                throttle(warmed, startTime, bytesPerSecond);
+            }
+        }
+        return warmed;
+    }
+
+    /**
+     * Sorts the entry ranges and merges those that overlap or are close to each other.
+     *
+     * @return start and end positions of the ranges to warm
+     */
+    @Nonnull
+    static List<long[]> ranges(@Nonnull List<PakFileEntry> entries) {
+        List<PakFileEntry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(PakFileEntry::getOffset));
+        List<long[]> ranges = new ArrayList<>();
+        long[] current = null;
+        for (PakFileEntry entry : sorted) {
+            long end = entry.getOffset() + entry.getStoredSize();
+            if (current != null && entry.getOffset() - current[1] <= PakBatchReader.MAX_GAP) {
+                current[1] = Math.max(current[1], end);
+            } else if (end > entry.getOffset()) {
+                current = new long[]{entry.getOffset(), end};
+                ranges.add(current);
+            }
+        }
+        return ranges;
+    }
+
+    /**
+     * Merges the ranges of entries that follow each other closely in the archive, keeping the given order.
+     *
+     * @return start and end positions of the ranges to warm
+     */
+    @Nonnull
+    static List<long[]> orderedRanges(@Nonnull List<PakFileEntry> entries) {
+        List<long[]> ranges = new ArrayList<>();
+        long[] current = null;
+        for (PakFileEntry entry : entries) {
+            long end = entry.getOffset() + entry.getStoredSize();
+            if (current != null && entry.getOffset() >= current[0]
+                    && entry.getOffset() - current[1] <= PakBatchReader.MAX_GAP) {
+                current[1] = Math.max(current[1], end);
+            } else if (end > entry.getOffset()) {
+                current = new long[]{entry.getOffset(), end};
+                ranges.add(current);
+            }
+        }
+        return ranges;
+    }
+
+    private static int read(@Nonnull PakByteSource source, @Nonnull ByteBuffer buffer, long position, int length)
+            throws IOException {
+        buffer.clear().limit(length);
+        return source.read(buffer, position);
+    }
+
+    private static void throttle(long warmed, long startTime, long bytesPerSecond) throws InterruptedException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long dueTime = startTime + (long) (warmed * 1e9 / bytesPerSecond);
+        long delay = dueTime - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+}
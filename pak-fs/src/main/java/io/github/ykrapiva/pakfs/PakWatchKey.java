@@ -0,0 +1,114 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Watch key of an archive root directory. Event contexts are the entry paths.
+ */
+class PakWatchKey implements WatchKey {
+    static final int MAX_EVENT_LIST_SIZE = 512;
+
+    private final PakWatchService watchService;
+    private final PakPath dir;
+    /**
+     * Kinds of events the key was registered for. Overflows are reported regardless.
+     */
+    private final Set<WatchEvent.Kind<?>> kinds;
+    private List<WatchEvent<?>> events = new ArrayList<>();
+    private boolean signalled;
+    private volatile boolean valid = true;
+
+    PakWatchKey(@Nonnull PakWatchService watchService, PakPath dir, @Nonnull Set<WatchEvent.Kind<?>> kinds) {
+        this.watchService = watchService;
+        this.dir = dir;
+        this.kinds = Collections.unmodifiableSet(kinds);
+    }
+
+    synchronized void signalEvent(@Nonnull WatchEvent.Kind<Path> kind, @Nonnull String entryName) {
+        if (!valid || !kinds.contains(kind)) {
+            return;
+        }
+        if (!events.isEmpty() && events.get(events.size() - 1).kind() == StandardWatchEventKinds.OVERFLOW) {
+            return;
+        }
+        if (events.size() >= MAX_EVENT_LIST_SIZE) {
+            events.clear();
+            events.add(new Event<>(StandardWatchEventKinds.OVERFLOW, null));
+        } else {
+            events.add(new Event<>(kind, dir.fileSystem.getEntryPath(entryName)));
+        }
+        if (!signalled) {
+            signalled = true;
+            watchService.enqueue(this);
+        }
+    }
+
+    @Override
+    public boolean isValid() {
+        return valid;
+    }
+
+    @Override
+    public synchronized List<WatchEvent<?>> pollEvents() {
+        List<WatchEvent<?>> result = events;
+        events = new ArrayList<>();
+        return result;
+    }
+
+    @Override
+    public synchronized boolean reset() {
+        if (signalled && valid) {
+            if (events.isEmpty()) {
+                signalled = false;
+            } else {
+                watchService.enqueue(this);
+            }
+        }
+        return valid;
+    }
+
+    @Override
+    public synchronized void cancel() {
+        if (valid) {
+            valid = false;
+            watchService.cancelled(this);
+            dir.fileSystem.pakFile.unregister(this);
+        }
+    }
+
+    @Override
+    public Path watchable() {
+        return dir;
+    }
+
+    @RequiredArgsConstructor
+    private static class Event<T> implements WatchEvent<T> {
+        private final Kind<T> kind;
+        private final T context;
+
+        @Override
+        public Kind<T> kind() {
+            return kind;
+        }
+
+        @Override
+        public T context() {
+            return context;
+        }
+
+        @Override
+        public int count() {
+            return 1;
+        }
+    }
+}
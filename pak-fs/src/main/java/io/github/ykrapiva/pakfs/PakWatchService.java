@@ -0,0 +1,104 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch service reporting entries created, modified or deleted when a changed archive is reloaded.
+ * Archives are only reloaded if their file system was created with the {@code reloadInterval} option.
+ */
+class PakWatchService implements WatchService {
+    private final LinkedBlockingDeque<WatchKey> pendingKeys = new LinkedBlockingDeque<>();
+    private final Set<PakWatchKey> keys = ConcurrentHashMap.newKeySet();
+    /**
+     * Queued on close to wake up threads blocked in {@link #take()}.
+     */
+    private final WatchKey closeKey = new PakWatchKey(this, null, Collections.emptySet());
+    private volatile boolean closed;
+
+    /**
+     * @param events kinds of events to report, {@code ENTRY_CREATE}, {@code ENTRY_DELETE}, {@code ENTRY_MODIFY}
+     *               or {@code OVERFLOW}, which is reported anyway
+     * @throws UnsupportedOperationException if an event kind is not supported
+     */
+    @Nonnull
+    PakWatchKey register(@Nonnull PakPath dir, @Nonnull WatchEvent.Kind<?>... events) {
+        Set<WatchEvent.Kind<?>> kinds = new HashSet<>();
+        for (WatchEvent.Kind<?> event : events) {
+            if (event == StandardWatchEventKinds.ENTRY_CREATE || event == StandardWatchEventKinds.ENTRY_DELETE
+                    || event == StandardWatchEventKinds.ENTRY_MODIFY) {
+                kinds.add(event);
+            } else if (event != StandardWatchEventKinds.OVERFLOW) {
+                throw new UnsupportedOperationException("Unsupported event kind: " + event);
+            }
+        }
+        ensureOpen();
+        PakWatchKey key = new PakWatchKey(this, dir, kinds);
+        keys.add(key);
+        dir.fileSystem.pakFile.register(key);
+        return key;
+    }
+
+    void cancelled(@Nonnull PakWatchKey key) {
+        keys.remove(key);
+    }
+
+    void enqueue(@Nonnull PakWatchKey key) {
+        pendingKeys.offer(key);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (PakWatchKey key : keys) {
+            key.cancel();
+        }
+        pendingKeys.clear();
+        pendingKeys.offer(closeKey);
+    }
+
+    @Override
+    public WatchKey poll() {
+        ensureOpen();
+        return checkKey(pendingKeys.poll());
+    }
+
+    @Override
+    public WatchKey poll(long timeout, TimeUnit unit) throws InterruptedException {
+        ensureOpen();
+        return checkKey(pendingKeys.poll(timeout, unit));
+    }
+
+    @Override
+    public WatchKey take() throws InterruptedException {
+        ensureOpen();
+        return checkKey(pendingKeys.take());
+    }
+
+    private WatchKey checkKey(WatchKey key) {
+        if (key == closeKey) {
+            pendingKeys.offer(key);
+        }
+        ensureOpen();
+        return key;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new ClosedWatchServiceException();
+        }
+    }
+}
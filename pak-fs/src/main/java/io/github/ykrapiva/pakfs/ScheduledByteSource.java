@@ -0,0 +1,32 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source whose reads go through the I/O scheduler with a priority.
+ */
+@RequiredArgsConstructor
+class ScheduledByteSource implements PakByteSource {
+    @Nonnull
+    @Getter
+    private final PakByteSource delegate;
+    @Nonnull
+    private final PakIoScheduler scheduler;
+    @Nonnull
+    private final PakIoPriority priority;
+
+    @Override
+    public long size() throws IOException {
+        return delegate.size();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        return scheduler.read(delegate, dst, position, priority);
+    }
+}
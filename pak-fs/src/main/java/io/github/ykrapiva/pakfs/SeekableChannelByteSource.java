@@ -0,0 +1,35 @@
+package io.github.ykrapiva.pakfs;
+
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Positional reads of a channel without them, such as a channel of an entry of a zip file system. Reads are
+ * serialized since each one moves the channel position.
+ */
+@RequiredArgsConstructor
+class SeekableChannelByteSource implements PakByteSource {
+    private final SeekableByteChannel channel;
+
+    @Override
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst, long position) throws IOException {
+        if (position >= channel.size()) {
+            return -1;
+        }
+        channel.position(position);
+        return channel.read(dst);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
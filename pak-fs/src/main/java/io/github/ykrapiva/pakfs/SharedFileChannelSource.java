@@ -0,0 +1,197 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Archive read through a single file channel shared by all readers of one archive snapshot. The channel is
+ * opened on first read and may be closed by the {@link PakResourceManager} while no read is in progress, the
+ * next read reopens it. A channel is only reopened if the archive file still has the signature of the
+ * snapshot, so that readers of a replaced archive fail instead of reading the new file.
+ */
+class SharedFileChannelSource implements PakByteSource {
+    private final Path path;
+    private final PakFileSignature signature;
+    private final PakResourceManager resourceManager;
+    @Nullable
+    private FileChannel channel; // guarded by this
+    private int activeReads; // guarded by this
+    /**
+     * Number of entry channels and archive reads holding this source.
+     */
+    private int users; // guarded by this
+    /**
+     * Whether the snapshot has been superseded or released, the channel is then closed with its last user.
+     */
+    private boolean retired; // guarded by this
+    /**
+     * Time of the last read, orders idle channels for closing.
+     */
+    private volatile long lastAccessTime;
+
+    SharedFileChannelSource(@Nonnull Path path, @Nonnull PakFileSignature signature,
+                            @Nonnull PakResourceManager resourceManager) {
+        this.path = path;
+        this.signature = signature;
+        this.resourceManager = resourceManager;
+    }
+
+    @Override
+    public long size() {
+        return signature.getSize();
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        FileChannel fileChannel = acquire();
+        try {
+            return fileChannel.read(dst, position);
+        } finally {
+            synchronized (this) {
+                activeReads--;
+            }
+        }
+    }
+
+    /**
+     * Returns the channel for one read, reopening it if the resource manager has closed it. Once the source is
+     * retired only its remaining users may reopen it, a late reader without a reference fails instead of leaking
+     * a descriptor nobody closes. The channel is opened and its signature checked outside the monitor, so that
+     * readers of an open channel and the resource manager do not wait for the disk; of readers reopening it at
+     * the same time the first one to finish installs its channel and the others close theirs.
+     */
+    @Nonnull
+    private FileChannel acquire() throws IOException {
+        lastAccessTime = System.nanoTime();
+        synchronized (this) {
+            if (retired && users == 0) {
+                throw new ClosedChannelException();
+            }
+            if (channel != null) {
+                activeReads++;
+                return channel;
+            }
+        }
+        FileChannel openedChannel = open();
+        FileChannel fileChannel = null;
+        synchronized (this) {
+            if (!(retired && users == 0)) {
+                if (channel == null) {
+                    channel = openedChannel;
+                }
+                fileChannel = channel;
+                activeReads++;
+            }
+        }
+        if (fileChannel == openedChannel) {
+            resourceManager.opened(this);
+            return fileChannel;
+        }
+        closeQuietly(openedChannel);
+        if (fileChannel == null) {
+            throw new ClosedChannelException();
+        }
+        return fileChannel;
+    }
+
+    @Nonnull
+    private FileChannel open() throws IOException {
+        FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (!signature.equals(PakFileSignature.read(path))) {
+                throw new FileSystemException(path.toString(), null, "Archive has been modified");
+            }
+        } catch (IOException | RuntimeException e) {
+            fileChannel.close();
+            throw e;
+        }
+        return fileChannel;
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Closes the channel unless a read is in progress. The next read reopens it.
+     *
+     * @return {@code true} if the channel is closed
+     */
+    boolean closeIfIdle() {
+        FileChannel fileChannel;
+        synchronized (this) {
+            if (activeReads > 0) {
+                return false;
+            }
+            fileChannel = channel;
+            channel = null;
+        }
+        closeQuietly(fileChannel);
+        return true;
+    }
+
+    /**
+     * Registers an entry channel or an archive read reading through this source.
+     *
+     * @return {@code false} if the source has been retired and must not be used for new channels
+     */
+    synchronized boolean retain() {
+        if (retired) {
+            return false;
+        }
+        users++;
+        return true;
+    }
+
+    /**
+     * Unregisters an entry channel or an archive read, the last one closes a retired source.
+     */
+    void release() {
+        boolean close;
+        synchronized (this) {
+            close = --users == 0 && retired;
+        }
+        if (close) {
+            closeRetired();
+        }
+    }
+
+    /**
+     * Marks the source as no longer used for new reads. Entry channels and archive reads started before keep
+     * reading through it, the channel is closed once they have all released it, or earlier by the resource
+     * manager.
+     */
+    void retire() {
+        boolean close;
+        synchronized (this) {
+            retired = true;
+            close = users == 0;
+        }
+        if (close) {
+            closeRetired();
+        }
+    }
+
+    private void closeRetired() {
+        if (closeIfIdle()) {
+            resourceManager.closed(this);
+        }
+    }
+
+    private static void closeQuietly(@Nullable FileChannel fileChannel) {
+        if (fileChannel != null) {
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                // Nothing was written, closing cannot lose data
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Source whose bytes are in memory and can be handed out as read-only views without copying.
+ */
+interface SliceableByteSource extends PakByteSource {
+    /**
+     * Returns a read-only view of a range of the archive.
+     *
+     * @return view or {@code null} if the range is not in one piece of memory
+     */
+    @Nullable
+    ByteBuffer slice(long position, int length) throws IOException;
+}
@@ -0,0 +1,22 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for blocking work, the JDK 21 version of the class. Blocking archive reads park virtual threads
+ * instead of holding platform threads.
+ */
+final class PakThreads {
+    private PakThreads() {
+    }
+
+    /**
+     * @return executor starting a virtual thread for every task
+     */
+    @Nonnull
+    static ExecutorService newBlockingExecutor(@Nonnull String namePrefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(namePrefix + "-", 1).factory());
+    }
+}
@@ -0,0 +1,249 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Memory mapped archive, the JDK 22 version of the class. The archive is mapped in fixed-size windows, each on
+ * first access, as memory segments. Reads spanning a window boundary are served from both windows.
+ * <p>
+ * A window read from is mapped in its own shared arena, which is closed, and the window unmapped, as soon as
+ * the {@link PakResourceManager} drops it and the reads in progress have finished, instead of whenever the
+ * garbage collector finds it. Slices outlive any read and are handed to callers, so they are views of a second
+ * mapping of the window in an automatic arena, which the garbage collector unmaps once no slice uses it.
+ */
+class MappedByteSource implements SliceableByteSource {
+    static final int DEFAULT_WINDOW_SHIFT = 30;
+
+    private final Path path;
+    /**
+     * Signature of the archive when the source was created. Windows are only mapped from the same file.
+     */
+    private final PakFileSignature signature;
+    private final long size;
+    private final int windowShift;
+    private final long windowMask;
+    private final AtomicReferenceArray<Window> windows;
+    private final AtomicReferenceArray<MemorySegment> sliceWindows;
+    @Nullable
+    private final PakResourceManager resourceManager;
+    private volatile long lastAccessTime;
+
+    MappedByteSource(@Nonnull Path path, @Nullable PakResourceManager resourceManager) throws IOException {
+        this(path, DEFAULT_WINDOW_SHIFT, resourceManager);
+    }
+
+    /**
+     * @param windowShift     binary logarithm of the window size, at most 30
+     * @param resourceManager manager accounting the mapped windows, {@code null} for none
+     */
+    MappedByteSource(@Nonnull Path path, int windowShift, @Nullable PakResourceManager resourceManager) throws IOException {
+        if (windowShift < 0 || windowShift > 30) {
+            throw new IllegalArgumentException("Window shift out of range: " + windowShift);
+        }
+        this.signature = PakFileSignature.read(path);
+        this.size = signature.getSize();
+        this.path = path;
+        this.resourceManager = resourceManager;
+        this.windowShift = windowShift;
+        this.windowMask = (1L << windowShift) - 1;
+        int windowCount = (int) ((size + windowMask) >>> windowShift);
+        this.windows = new AtomicReferenceArray<>(windowCount);
+        this.sliceWindows = new AtomicReferenceArray<>(windowCount);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (position >= size) {
+            return -1;
+        }
+
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            Window window = acquire((int) (position >>> windowShift));
+            try {
+                long windowPosition = position & windowMask;
+                int length = (int) Math.min(dst.remaining(), window.segment.byteSize() - windowPosition);
+                MemorySegment.copy(window.segment, windowPosition, MemorySegment.ofBuffer(dst), 0, length);
+                dst.position(dst.position() + length);
+
+                position += length;
+                total += length;
+            } finally {
+                window.release();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns a read-only view of the archive bytes without copying them.
+     *
+     * @return view or {@code null} if the range spans a window boundary
+     */
+    @Override
+    public ByteBuffer slice(long position, int length) throws IOException {
+        if (position < 0 || length < 0 || position + length > size) {
+            throw new IllegalArgumentException("Range out of bounds: " + position + "+" + length);
+        }
+        int windowIndex = (int) (position >>> windowShift);
+        long windowPosition = position & windowMask;
+        MemorySegment window = sliceWindow(windowIndex);
+        if (windowPosition + length > window.byteSize()) {
+            return null;
+        }
+        return window.asSlice(windowPosition, length).asByteBuffer().asReadOnlyBuffer();
+    }
+
+    long getLastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Drops all mapped windows. Windows read from are unmapped once the reads in progress have finished,
+     * windows of slices once the slices are garbage collected.
+     *
+     * @return number of bytes of the dropped windows
+     */
+    long unmap() {
+        long bytes = 0;
+        for (int i = 0; i < windows.length(); i++) {
+            Window window = windows.getAndSet(i, null);
+            if (window != null) {
+                bytes += window.segment.byteSize();
+                window.drop();
+            }
+            MemorySegment sliceWindow = sliceWindows.getAndSet(i, null);
+            if (sliceWindow != null) {
+                bytes += sliceWindow.byteSize();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the window for one read, mapping it if it is not mapped or has just been dropped.
+     */
+    @Nonnull
+    private Window acquire(int index) throws IOException {
+        lastAccessTime = System.nanoTime();
+        while (true) {
+            Window window = windows.get(index);
+            if (window == null) {
+                Arena arena = Arena.ofShared();
+                try {
+                    window = new Window(arena, map(index, arena));
+                } catch (IOException | RuntimeException e) {
+                    arena.close();
+                    throw e;
+                }
+                if (windows.compareAndSet(index, null, window)) {
+                    mapped(window.segment.byteSize());
+                } else {
+                    arena.close();
+                    continue;
+                }
+            }
+            if (window.acquire()) {
+                return window;
+            }
+        }
+    }
+
+    @Nonnull
+    private MemorySegment sliceWindow(int index) throws IOException {
+        lastAccessTime = System.nanoTime();
+        MemorySegment window = sliceWindows.get(index);
+        if (window == null) {
+            window = map(index, Arena.ofAuto());
+            if (sliceWindows.compareAndSet(index, null, window)) {
+                mapped(window.byteSize());
+            } else {
+                MemorySegment current = sliceWindows.get(index);
+                if (current != null) {
+                    window = current;
+                }
+            }
+        }
+        return window;
+    }
+
+    @Nonnull
+    private MemorySegment map(int index, @Nonnull Arena arena) throws IOException {
+        long windowPosition = (long) index << windowShift;
+        long windowSize = Math.min(windowMask + 1, size - windowPosition);
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (!signature.equals(PakFileSignature.read(path))) {
+                throw new FileSystemException(path.toString(), null, "Archive has been modified");
+            }
+            return fileChannel.map(FileChannel.MapMode.READ_ONLY, windowPosition, windowSize, arena);
+        }
+    }
+
+    private void mapped(long bytes) {
+        if (resourceManager != null) {
+            resourceManager.mapped(this, bytes);
+        }
+    }
+
+    /**
+     * Window in its own arena, closed by the last of the reads and the drop.
+     */
+    private static final class Window {
+        private final Arena arena;
+        final MemorySegment segment;
+        private int readers; // guarded by this
+        private boolean dropped; // guarded by this
+
+        Window(Arena arena, MemorySegment segment) {
+            this.arena = arena;
+            this.segment = segment;
+        }
+
+        /**
+         * @return {@code false} if the window has been dropped and must not be read
+         */
+        synchronized boolean acquire() {
+            if (dropped) {
+                return false;
+            }
+            readers++;
+            return true;
+        }
+
+        void release() {
+            boolean close;
+            synchronized (this) {
+                close = --readers == 0 && dropped;
+            }
+            if (close) {
+                arena.close();
+            }
+        }
+
+        void drop() {
+            boolean close;
+            synchronized (this) {
+                dropped = true;
+                close = readers == 0;
+            }
+            if (close) {
+                arena.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.ykrapiva.pakfs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Least recently used decompressed blocks of block compressed entries, shared by all channels of an archive,
+ * the JDK 22 version of the class. Blocks are keyed by the identity of their entry, so blocks of an entry
+ * replaced by a reload are never served for the new one and simply age out.
+ * <p>
+ * Blocks are kept off the heap, each in its own shared arena, which is closed, and its memory freed, as soon as
+ * the block is evicted and the copies from it in progress have finished.
+ */
+class PakBlockCache {
+    static final PakBlockCache DISABLED = new PakBlockCache(0);
+
+    private final Cache<Key, Block> blocks;
+    private volatile boolean closed;
+
+    PakBlockCache(long maxBytes) {
+        this.blocks = maxBytes > 0
+                ? CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Key, Block>weigher((key, block) -> (int) block.segment.byteSize())
+                .removalListener((RemovalNotification<Key, Block> notification) -> notification.getValue().evict())
+                .build()
+                : null;
+    }
+
+    /**
+     * Copies bytes of the cached block, or of the block decompressed and cached, into the buffer.
+     *
+     * @param offset offset of the first byte to copy within the block
+     * @return number of bytes copied, up to the end of the block
+     */
+    int copy(@Nonnull PakFileEntry entry, int block, @Nonnull Callable<byte[]> loader, int offset,
+             @Nonnull ByteBuffer dst) throws IOException {
+        if (blocks == null || closed) {
+            byte[] content = call(loader);
+            int length = Math.min(dst.remaining(), content.length - offset);
+            dst.put(content, offset, length);
+            return length;
+        }
+        Key key = new Key(entry, block);
+        while (true) {
+            Block cached;
+            try {
+                cached = blocks.get(key, () -> Block.of(call(loader)));
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            // Evicted between the lookup and the pin, look it up again
+            if (cached.pin()) {
+                try {
+                    if (closed) {
+                        // Cached after the cache was closed, nothing else would free it
+                        blocks.invalidate(key);
+                    }
+                    int length = (int) Math.min(dst.remaining(), cached.segment.byteSize() - offset);
+                    MemorySegment.copy(cached.segment, ValueLayout.JAVA_BYTE, offset, MemorySegment.ofBuffer(dst),
+                            ValueLayout.JAVA_BYTE, 0, length);
+                    dst.position(dst.position() + length);
+                    return length;
+                } finally {
+                    cached.unpin();
+                }
+            }
+        }
+    }
+
+    /**
+     * Frees the cached blocks, later copies decompress their blocks without caching them.
+     */
+    void close() {
+        closed = true;
+        if (blocks != null) {
+            blocks.invalidateAll();
+        }
+    }
+
+    @Nonnull
+    private static byte[] call(@Nonnull Callable<byte[]> loader) throws IOException {
+        try {
+            return loader.call();
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Block in its own arena, closed by the last of the copies and the eviction.
+     */
+    private static final class Block {
+        private final Arena arena;
+        final MemorySegment segment;
+        private int pins; // guarded by this
+        private boolean evicted; // guarded by this
+
+        private Block(Arena arena, MemorySegment segment) {
+            this.arena = arena;
+            this.segment = segment;
+        }
+
+        @Nonnull
+        static Block of(@Nonnull byte[] content) {
+            Arena arena = Arena.ofShared();
+            MemorySegment segment = arena.allocate(content.length);
+            MemorySegment.copy(content, 0, segment, ValueLayout.JAVA_BYTE, 0, content.length);
+            return new Block(arena, segment);
+        }
+
+        /**
+         * @return {@code false} if the block has been evicted and must not be read
+         */
+        synchronized boolean pin() {
+            if (evicted) {
+                return false;
+            }
+            pins++;
+            return true;
+        }
+
+        void unpin() {
+            boolean close;
+            synchronized (this) {
+                close = --pins == 0 && evicted;
+            }
+            if (close) {
+                arena.close();
+            }
+        }
+
+        void evict() {
+            boolean close;
+            synchronized (this) {
+                evicted = true;
+                close = pins == 0;
+            }
+            if (close) {
+                arena.close();
+            }
+        }
+    }
+
+    private static final class Key {
+        private final PakFileEntry entry;
+        private final int block;
+
+        Key(PakFileEntry entry, int block) {
+            this.entry = entry;
+            this.block = block;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return entry == key.entry && block == key.block;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(entry) + block;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DaikatanaDecoderTest {
+    private static final int OFFSET = 7;
+
+    private byte[] content;
+    private byte[] archive;
+    private PakFileEntry entry;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        content = new byte[3 * DaikatanaDecoder.CHECKPOINT_INTERVAL + 1234];
+        String[] words = {"maps/", "level", "\0\0\0\0\0\0\0\0", "texture", "xxxxxxxxxxxx"};
+        for (int i = 0; i < content.length; ) {
+            byte[] word = random.nextInt(4) == 0
+                    ? new byte[]{(byte) random.nextInt(256)}
+                    : words[random.nextInt(words.length)].getBytes();
+            int length = Math.min(word.length, content.length - i);
+            System.arraycopy(word, 0, content, i, length);
+            i += length;
+        }
+
+        byte[] compressed = PakFileCreator.compressDaikatana(content);
+        archive = new byte[OFFSET + compressed.length];
+        System.arraycopy(compressed, 0, archive, OFFSET, compressed.length);
+        entry = new PakFileEntry("test", OFFSET, content.length, compressed.length, PakEntryCodecs.DAIKATANA);
+    }
+
+    @Test
+    void read_decodesWholeContent() throws IOException {
+        DaikatanaDecoder subject = new DaikatanaDecoder(source(archive), entry);
+
+        assertThat(readAll(subject, 0, content.length)).isEqualTo(content);
+        assertThat(subject.read(ByteBuffer.allocate(1), content.length)).isEqualTo(-1);
+    }
+
+    @Test
+    void read_afterSeeks_matchesContent() throws IOException {
+        DaikatanaDecoder subject = new DaikatanaDecoder(source(archive), entry);
+        readAll(subject, 0, content.length);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            int position = random.nextInt(content.length);
+            int length = Math.min(1 + random.nextInt(1000), content.length - position);
+
+            assertThat(readAll(subject, position, length))
+                    .isEqualTo(Arrays.copyOfRange(content, position, position + length));
+        }
+    }
+
+    @Test
+    void read_whenDataTruncated_throwsFileFormatException() {
+        PakFileEntry truncated = new PakFileEntry("test", OFFSET, content.length, 100, PakEntryCodecs.DAIKATANA);
+        DaikatanaDecoder subject = new DaikatanaDecoder(source(archive), truncated);
+
+        assertThatThrownBy(() -> readAll(subject, 0, content.length)).isInstanceOf(FileFormatException.class);
+    }
+
+    private static byte[] readAll(DaikatanaDecoder decoder, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            int read = decoder.read(buffer, position);
+            assertThat(read).isPositive();
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    private static PakByteSource source(byte[] bytes) {
+        return new PakByteSource() {
+            @Override
+            public long size() {
+                return bytes.length;
+            }
+
+            @Override
+            public int read(ByteBuffer dst, long position) {
+                if (position >= bytes.length) {
+                    return -1;
+                }
+                int length = (int) Math.min(dst.remaining(), bytes.length - position);
+                dst.put(bytes, (int) position, length);
+                return length;
+            }
+        };
+    }
+}
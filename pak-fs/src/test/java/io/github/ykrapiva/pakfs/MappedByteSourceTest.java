@@ -0,0 +1,60 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedByteSourceTest {
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @TempDir
+    private Path tempDir;
+    private MappedByteSource subject;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = tempDir.resolve("test.bin");
+        Files.write(file, CONTENT.getBytes(StandardCharsets.US_ASCII));
+        subject = new MappedByteSource(file, 4, null);
+    }
+
+    @Test
+    void size() {
+        assertThat(subject.size()).isEqualTo(CONTENT.length());
+    }
+
+    @Test
+    void read_whenRangeSpansWindows_readsAcrossWindowBoundaries() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+
+        assertThat(subject.read(buffer, 10)).isEqualTo(20);
+        assertThat(new String(buffer.array(), StandardCharsets.US_ASCII)).isEqualTo(CONTENT.substring(10, 30));
+    }
+
+    @Test
+    void read_whenRangeExceedsSize_readsUntilEnd() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+
+        assertThat(subject.read(buffer, 30)).isEqualTo(6);
+        assertThat(subject.read(buffer, 36)).isEqualTo(-1);
+    }
+
+    @Test
+    void slice() throws IOException {
+        ByteBuffer slice = subject.slice(10, 10);
+        assertThat(slice).isNull();
+
+        slice = subject.slice(16, 16);
+        byte[] bytes = new byte[slice.remaining()];
+        slice.get(bytes);
+        assertThat(new String(bytes, StandardCharsets.US_ASCII)).isEqualTo(CONTENT.substring(16, 32));
+    }
+}
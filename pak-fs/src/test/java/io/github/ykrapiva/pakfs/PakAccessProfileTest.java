@@ -0,0 +1,72 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PakAccessProfileTest {
+    @TempDir
+    private Path tempDir;
+
+    private final List<PakFileEntry> records = Arrays.asList(
+            new PakFileEntry("a", 12, 10),
+            new PakFileEntry("b", 22, 300),
+            new PakFileEntry("a", 322, 5),
+            new PakFileEntry("c", 327, 1_000_000));
+    private final PakFileIndex index = new PakFileIndex(records,
+            new PakFileSignature(2_000_000, FileTime.fromMillis(0), null));
+
+    @Test
+    void writeAndRead() throws IOException {
+        Path path = tempDir.resolve("profile");
+        new PakAccessProfile(1L << 40, 4, new int[]{3, 0, 300}, new long[]{0, 15, 100_000}).write(path);
+
+        PakAccessProfile profile = PakAccessProfile.read(path);
+
+        assertThat(profile.getArchiveSize()).isEqualTo(1L << 40);
+        assertThat(profile.getRecordCount()).isEqualTo(4);
+        assertThat(profile.size()).isEqualTo(3);
+        assertThat(profile.ordinal(2)).isEqualTo(300);
+        assertThat(profile.time(2)).isEqualTo(100_000);
+        assertThat(Files.list(tempDir)).containsExactly(path);
+    }
+
+    @Test
+    void read_whenNotAProfile_throwsFileFormatException() throws IOException {
+        Path path = tempDir.resolve("profile");
+        Files.write(path, new byte[]{'P', 'A', 'K', 'P', 1, (byte) 0x80});
+
+        assertThatThrownBy(() -> PakAccessProfile.read(path)).isInstanceOf(FileFormatException.class);
+    }
+
+    @Test
+    void recorder_recordsFirstOpenOfEveryEntry() {
+        PakAccessRecorder recorder = new PakAccessRecorder();
+        recorder.record(index, index.get("c"));
+        recorder.record(index, index.get("a"));
+        recorder.record(index, index.get("c"));
+
+        PakAccessProfile profile = recorder.toProfile();
+
+        assertThat(profile.size()).isEqualTo(2);
+        assertThat(profile.ordinal(0)).isEqualTo(3);
+        assertThat(profile.ordinal(1)).isEqualTo(0);
+        assertThat(profile.entries(index)).containsExactly(records.get(3), records.get(0));
+    }
+
+    @Test
+    void entries_whenArchiveDiffers_isEmpty() {
+        PakAccessProfile profile = new PakAccessProfile(2_000_000, 3, new int[]{0}, new long[]{0});
+
+        assertThat(profile.entries(index)).isEmpty();
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PakBatchReaderTest {
+    @Test
+    void read_mergesNearbyRanges() throws IOException {
+        byte[] archive = new byte[2 * PakBatchReader.MAX_GAP + 1000];
+        byte[] script = "scripts/script.txt scripts/script.txt".getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = PakFileCreator.compressDaikatana(script);
+        put(archive, 100, "first");
+        put(archive, 110, "second");
+        System.arraycopy(compressed, 0, archive, 200, compressed.length);
+        put(archive, archive.length - 10, "far");
+
+        List<PakFileEntry> entries = Arrays.asList(
+                new PakFileEntry("far", archive.length - 10, 3),
+                new PakFileEntry("second", 110, 6),
+                new PakFileEntry("script", 200, script.length, compressed.length, PakEntryCodecs.DAIKATANA),
+                new PakFileEntry("first", 100, 5));
+        List<Long> reads = new ArrayList<>();
+        ByteBufferByteSource bytes = new ByteBufferByteSource(ByteBuffer.wrap(archive), 0);
+        PakByteSource source = new PakByteSource() {
+            @Override
+            public long size() {
+                return bytes.size();
+            }
+
+            @Override
+            public int read(ByteBuffer dst, long position) {
+                reads.add(position);
+                return bytes.read(dst, position);
+            }
+        };
+
+        ByteBuffer[] contents = PakBatchReader.read(source, entries, PakBlockCache.DISABLED);
+
+        assertThat(string(contents[0])).isEqualTo("far");
+        assertThat(string(contents[1])).isEqualTo("second");
+        assertThat(contents[2]).isEqualTo(ByteBuffer.wrap(script));
+        assertThat(string(contents[3])).isEqualTo("first");
+        assertThat(reads).containsExactly(100L, archive.length - 10L);
+        assertThat(contents).allMatch(ByteBuffer::isReadOnly);
+    }
+
+    private static String string(ByteBuffer buffer) {
+        return StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+    }
+
+    private static void put(byte[] archive, int offset, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(bytes, 0, archive, offset, bytes.length);
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PakBloomFilterTest {
+    @Test
+    void mightContain() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            names.add("textures/texture" + i + ".tga");
+        }
+        PakBloomFilter subject = new PakBloomFilter(names);
+
+        assertThat(names).allMatch(subject::mightContain);
+        assertThat(subject.falsePositiveRate()).isNaN();
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (subject.mightContain("sounds/sound" + i + ".wav")) {
+                subject.falsePositive();
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(5_000);
+        assertThat(subject.falsePositiveRate()).isEqualTo(falsePositives / 100_000.0);
+    }
+
+    @Test
+    void mightContain_whenEmpty_rejectsEverything() {
+        PakBloomFilter subject = new PakBloomFilter(Collections.emptyList());
+        assertThat(subject.mightContain("palette.pcx")).isFalse();
+        assertThat(subject.falsePositiveRate()).isZero();
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PakByteSourcesTest {
+    private static final String[] ENTRIES = {"maps/level1.bsp", "maps/level2.bsp", "textures/texture.tga", "palette.pcx"};
+
+    @TempDir
+    private Path tempDir;
+    private Path pakPath;
+    private byte[] pakBytes;
+    private final PakFileSystemProvider provider = new PakFileSystemProvider();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pakPath = tempDir.resolve("test.pak");
+        PakFileCreator.createPakFile(pakPath, ENTRIES);
+        pakBytes = Files.readAllBytes(pakPath);
+    }
+
+    @Test
+    void of_seekableByteChannel() throws IOException {
+        try (PakByteSource source = PakByteSources.of(new ForwardingChannel(FileChannel.open(pakPath, StandardOpenOption.READ)))) {
+            assertThat(source).isInstanceOf(SeekableChannelByteSource.class);
+            assertThat(source.size()).isEqualTo(pakBytes.length);
+
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            assertThat(source.read(buffer, 0)).isEqualTo(4);
+            assertThat(new String(buffer.array(), StandardCharsets.US_ASCII)).isEqualTo("PACK");
+            assertThat(source.read(ByteBuffer.allocate(4), pakBytes.length)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void cached_readsAlignedBlocksOnce() throws IOException {
+        LatencySource latencySource = new LatencySource(pakBytes, 0);
+        PakByteSource source = PakByteSources.cached(latencySource, 16, 1024);
+
+        ByteBuffer buffer = ByteBuffer.allocate(40);
+        assertThat(source.read(buffer, 5)).isEqualTo(40);
+        assertThat(buffer.array()).isEqualTo(slice(pakBytes, 5, 40));
+        assertThat(latencySource.reads).hasValue(1);
+
+        buffer.clear().limit(10);
+        assertThat(source.read(buffer, 20)).isEqualTo(10);
+        assertThat(latencySource.reads).hasValue(1);
+
+        assertThat(source.read(ByteBuffer.allocate(100), pakBytes.length - 3)).isEqualTo(3);
+        assertThat(source.read(ByteBuffer.allocate(100), pakBytes.length)).isEqualTo(-1);
+    }
+
+    @Test
+    void newFileSystem_fromSimulatedHighLatencySource_readsFewBlocks() throws IOException {
+        LatencySource latencySource = new LatencySource(pakBytes, 5);
+        PakByteSource source = PakByteSources.cached(latencySource, 4096, 1 << 20);
+
+        try (PakFileSystem fileSystem = provider.newFileSystem("remote/test.pak", source, Collections.emptyMap())) {
+            for (int round = 0; round < 2; round++) {
+                for (String entry : ENTRIES) {
+                    assertThat(new String(Files.readAllBytes(fileSystem.getPath(entry)), StandardCharsets.UTF_8)).isEqualTo(entry);
+                }
+            }
+            assertThat(latencySource.reads.get()).isLessThanOrEqualTo(2);
+
+            Path path = provider.getPath(URI.create("pak:source:remote/test.pak!palette.pcx"));
+            assertThat(path.getFileSystem()).isSameAs(fileSystem);
+            assertThat(path.toUri()).isEqualTo(fileSystem.getPath("palette.pcx").toUri());
+            assertThatThrownBy(() -> provider.newFileSystem("remote/test.pak", source, Collections.emptyMap()))
+                    .isInstanceOf(FileSystemAlreadyExistsException.class);
+        }
+        assertThat(latencySource.closed).isTrue();
+    }
+
+    @Test
+    void readAllBytes_ofStoredEntry_readsOnceOrCopiesFromTheBuffer() throws IOException {
+        CountingSource countingSource = new CountingSource(pakBytes);
+        try (PakFileSystem fileSystem = provider.newFileSystem("counting/test.pak", countingSource, Collections.emptyMap())) {
+            Path path = fileSystem.getPath("maps/level1.bsp");
+            assertThat(Files.size(path)).isPositive();
+            int readsBefore = countingSource.reads.get();
+            try (InputStream in = Files.newInputStream(path)) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("maps/level1.bsp");
+            }
+            assertThat(countingSource.reads.get() - readsBefore).isEqualTo(1);
+        }
+
+        LatencySource bufferSource = new LatencySource(pakBytes, 0);
+        try (PakFileSystem fileSystem = provider.newFileSystem("buffer/test.pak", bufferSource, Collections.emptyMap())) {
+            Path path = fileSystem.getPath("maps/level1.bsp");
+            assertThat(Files.size(path)).isPositive();
+            int readsBefore = bufferSource.reads.get();
+            try (InputStream in = Files.newInputStream(path)) {
+                assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("maps/level1.bsp");
+            }
+            assertThat(bufferSource.reads.get()).isEqualTo(readsBefore);
+        }
+    }
+
+    private static byte[] slice(byte[] bytes, int offset, int length) {
+        byte[] result = new byte[length];
+        System.arraycopy(bytes, offset, result, 0, length);
+        return result;
+    }
+
+    /**
+     * In-memory source that waits before every read like a remote store.
+     */
+    private static class LatencySource extends ByteBufferByteSource {
+        private final long latencyMillis;
+        final AtomicInteger reads = new AtomicInteger();
+        volatile boolean closed;
+
+        LatencySource(byte[] bytes, long latencyMillis) {
+            super(ByteBuffer.wrap(bytes), 0);
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) {
+            reads.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.read(dst, position);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * In-memory source that is not a {@link SliceableByteSource} and counts its reads.
+     */
+    private static class CountingSource implements PakByteSource {
+        private final ByteBufferByteSource delegate;
+        final AtomicInteger reads = new AtomicInteger();
+
+        CountingSource(byte[] bytes) {
+            delegate = new ByteBufferByteSource(ByteBuffer.wrap(bytes), 0);
+        }
+
+        @Override
+        public long size() {
+            return delegate.size();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) {
+            reads.incrementAndGet();
+            return delegate.read(dst, position);
+        }
+    }
+
+    /**
+     * Channel that is not a {@link FileChannel}.
+     */
+    private static class ForwardingChannel implements SeekableByteChannel {
+        private final SeekableByteChannel channel;
+
+        ForwardingChannel(SeekableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public SeekableByteChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public SeekableByteChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PakContentHashesTest {
+    private static final PakFileSignature SIGNATURE = new PakFileSignature(1000, FileTime.fromMillis(12345), null);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void get_whenEntriesShareData_sharesHash() {
+        PakContentHashes hashes = new PakContentHashes();
+        hashes.put(new PakFileEntry("a", 12, 100), "hash");
+
+        assertThat(hashes.get(new PakFileEntry("b", 12, 100))).isEqualTo("hash");
+        assertThat(hashes.get(new PakFileEntry("c", 12, 99))).isNull();
+        assertThat(hashes.get(new PakFileEntry("d", 12, 100, 100, PakEntryCodecs.DEFLATE_BLOCKS))).isNull();
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        Path sidecar = tempDir.resolve("test.pak.hashes");
+        PakContentHashes hashes = new PakContentHashes();
+        hashes.put(new PakFileEntry("a", 12, 100), "hash1");
+        hashes.put(new PakFileEntry("b", 112, 300, 50, PakEntryCodecs.DAIKATANA), "hash2");
+        assertThat(hashes.isModified()).isTrue();
+        hashes.write(sidecar, SIGNATURE);
+        assertThat(hashes.isModified()).isFalse();
+
+        PakContentHashes readHashes = new PakContentHashes();
+        assertThat(readHashes.read(sidecar, SIGNATURE)).isTrue();
+        assertThat(readHashes.get(new PakFileEntry("x", 12, 100))).isEqualTo("hash1");
+        assertThat(readHashes.get(new PakFileEntry("y", 112, 300, 50, PakEntryCodecs.DAIKATANA))).isEqualTo("hash2");
+        assertThat(readHashes.isModified()).isFalse();
+
+        PakFileSignature otherSignature = new PakFileSignature(1000, FileTime.fromMillis(12346), null);
+        assertThat(new PakContentHashes().read(sidecar, otherSignature)).isFalse();
+    }
+}
@@ -0,0 +1,171 @@
+package io.github.ykrapiva.pakfs;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.WRITE;
+
+class PakFileCreator {
+    static void createPakFile(@Nonnull Path path, @Nonnull String... entries) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.CREATE, WRITE)) {
+            channel.position(12);
+
+            List<PakFileEntry> pakFileEntries = new LinkedList<>();
+
+            for (String entry : entries) {
+                final int position = (int) channel.position();
+                writeString(channel, entry);
+                final int size = (int) channel.position() - position;
+
+                PakFileEntry pakFileEntry = new PakFileEntry(entry, position, size);
+                pakFileEntries.add(pakFileEntry);
+            }
+
+            final int fileTableOffset = (int) channel.position();
+
+            for (PakFileEntry pakFileEntry : pakFileEntries) {
+                writeString(channel, pakFileEntry.getName(), 56);
+                writeInt(channel, (int) pakFileEntry.getOffset());
+                writeInt(channel, (int) pakFileEntry.getSize());
+            }
+
+            final int fileTableLength = (int) channel.position() - fileTableOffset;
+
+            channel.position(0);
+            writeString(channel, "PACK");
+            writeInt(channel, fileTableOffset);
+            writeInt(channel, fileTableLength);
+        }
+    }
+
+    /**
+     * Creates an archive in the Daikatana layout with every entry compressed.
+     */
+    static void createDaikatanaPakFile(@Nonnull Path path, @Nonnull Map<String, byte[]> entries) throws IOException {
+        try (SeekableByteChannel channel = Files.newByteChannel(path, StandardOpenOption.CREATE, WRITE)) {
+            channel.position(12);
+
+            List<PakFileEntry> pakFileEntries = new LinkedList<>();
+
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final int position = (int) channel.position();
+                channel.write(ByteBuffer.wrap(compressDaikatana(entry.getValue())));
+                final int storedSize = (int) channel.position() - position;
+
+                pakFileEntries.add(new PakFileEntry(entry.getKey(), position, entry.getValue().length, storedSize,
+                        PakEntryCodecs.DAIKATANA));
+            }
+
+            final int fileTableOffset = (int) channel.position();
+
+            for (PakFileEntry pakFileEntry : pakFileEntries) {
+                writeString(channel, pakFileEntry.getName(), 56);
+                writeInt(channel, (int) pakFileEntry.getOffset());
+                writeInt(channel, (int) pakFileEntry.getSize());
+                writeInt(channel, (int) pakFileEntry.getStoredSize());
+                writeInt(channel, 1);
+            }
+
+            final int fileTableLength = (int) channel.position() - fileTableOffset;
+
+            channel.position(0);
+            writeString(channel, "PACK");
+            writeInt(channel, fileTableOffset);
+            writeInt(channel, fileTableLength);
+        }
+    }
+
+    /**
+     * Greedy encoder producing every token kind of the Daikatana compression.
+     */
+    static byte[] compressDaikatana(@Nonnull byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int literalStart = -1;
+        int i = 0;
+        while (i < data.length) {
+            int run = 1;
+            while (i + run < data.length && run < 65 && data[i + run] == data[i]) {
+                run++;
+            }
+            int copyLength = 0;
+            int copyDistance = 0;
+            for (int distance = 2; distance <= 257 && distance <= i; distance++) {
+                int length = 0;
+                while (i + length < data.length && length < 63 && data[i + length] == data[i + length - distance]) {
+                    length++;
+                }
+                if (length > copyLength) {
+                    copyLength = length;
+                    copyDistance = distance;
+                }
+            }
+
+            if (run >= 2 || copyLength >= 3) {
+                flushLiterals(out, data, literalStart, i);
+                literalStart = -1;
+                if (run >= copyLength) {
+                    if (data[i] == 0) {
+                        out.write(run + 62);
+                    } else {
+                        out.write(run + 126);
+                        out.write(data[i]);
+                    }
+                    i += run;
+                } else {
+                    out.write(copyLength + 190);
+                    out.write(copyDistance - 2);
+                    i += copyLength;
+                }
+            } else {
+                if (literalStart < 0) {
+                    literalStart = i;
+                } else if (i - literalStart == 64) {
+                    flushLiterals(out, data, literalStart, i);
+                    literalStart = i;
+                }
+                i++;
+            }
+        }
+        flushLiterals(out, data, literalStart, i);
+        out.write(255);
+        return out.toByteArray();
+    }
+
+    private static void flushLiterals(ByteArrayOutputStream out, byte[] data, int start, int end) {
+        if (start >= 0 && end > start) {
+            out.write(end - start - 1);
+            out.write(data, start, end - start);
+        }
+    }
+
+    private static void writeString(SeekableByteChannel channel, String s) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(s.getBytes(StandardCharsets.UTF_8));
+        channel.write(buffer);
+    }
+
+    private static void writeString(SeekableByteChannel channel, String s, @SuppressWarnings("SameParameterValue") int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(s.getBytes(StandardCharsets.UTF_8));
+        buffer.position(0);
+        channel.write(buffer);
+    }
+
+    private static void writeInt(SeekableByteChannel channel, int number) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(number);
+        buffer.position(0);
+        channel.write(buffer);
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PakFileIndexTest {
+    private static final PakFileSignature SIGNATURE = new PakFileSignature(0, FileTime.fromMillis(0), null);
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void newIndex_whenHuge_resolvesDuplicatesLikeSequentialBuild() {
+        int count = 4 * PakDirectoryReader.PARALLEL_THRESHOLD;
+        List<PakFileEntry> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Every name appears twice, the first time at an even ordinal
+            String name = "maps/level" + (i % 2 == 0 ? i : i - 1 - 2 * (i % 3)) + ".bsp";
+            records.add(new PakFileEntry(name, i, 1));
+        }
+        Map<String, PakFileEntry> expected = new LinkedHashMap<>();
+        for (PakFileEntry record : records) {
+            expected.putIfAbsent(record.getName(), record);
+        }
+
+        // Indexed in parallel and, by a pool of one thread, sequentially
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool singleThreadPool = new ForkJoinPool(1);
+        try {
+            for (PakFileIndex index : Arrays.asList(new PakFileIndex(records, SIGNATURE, pool),
+                    new PakFileIndex(records, SIGNATURE, singleThreadPool))) {
+                assertThat(index.entries()).containsExactlyElementsOf(expected.values());
+                for (PakFileEntry entry : expected.values()) {
+                    assertThat(index.get(entry.getName())).isSameAs(entry);
+                }
+                assertThat(index.records()).isEqualTo(records);
+            }
+        } finally {
+            pool.shutdown();
+            singleThreadPool.shutdown();
+        }
+    }
+
+    @Test
+    void nameTable_whenHugeAndCaseInsensitive_findsFirstOfNamesDifferingInCase() {
+        int count = 4 * PakDirectoryReader.PARALLEL_THRESHOLD;
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Every name appears twice, in lower case first
+            names.add(i % 2 == 0 ? "textures/wall" + i + ".tga" : "TEXTURES/WALL" + (i - 1) + ".TGA");
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PakNameTable table = PakNameTable.build(names, true, pool);
+            for (int i = 0; i < count; i += 2) {
+                assertThat(table.get(names.get(i + 1))).isEqualTo(i);
+                assertThat(table.get("Textures", "Wall" + i + ".tga")).isEqualTo(i);
+            }
+            assertThat(table.get("textures/wall1.tga")).isEqualTo(-1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void orders() {
+        PakFileIndex index = new PakFileIndex(Arrays.asList(
+                new PakFileEntry("c", 300, 1),
+                new PakFileEntry("a", 100, 1),
+                new PakFileEntry("c", 50, 1),
+                new PakFileEntry("b", 10, 1),
+                new PakFileEntry("d", 100, 1)), SIGNATURE);
+
+        assertThat(index.getOffsetOrder()).containsExactly(2, 1, 3, 0);
+        assertThat(index.getNameOrder()).containsExactly(1, 2, 0, 3);
+        assertThat(index.entries()).extracting(PakFileEntry::getName).containsExactly("c", "a", "b", "d");
+    }
+
+    @Test
+    void readEntries_whenHugeDirectory_decodesInParallel() throws IOException {
+        Path path = tempDir.resolve("huge.pak");
+        int count = 2 * PakDirectoryReader.PARALLEL_THRESHOLD + 7;
+        try (PakFileWriter writer = PakFileWriter.create(path)) {
+            for (int i = 0; i < count; i++) {
+                writer.write("entry" + i, new byte[]{(byte) i});
+            }
+        }
+
+        List<PakFileEntry> entries = PakDirectoryReader.readEntries(
+                new ByteBufferByteSource(ByteBuffer.wrap(Files.readAllBytes(path)), 0));
+
+        assertThat(entries).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(entries.get(i)).isEqualTo(new PakFileEntry("entry" + i, PakDirectoryReader.HEADER_SIZE + i, 1));
+        }
+    }
+}
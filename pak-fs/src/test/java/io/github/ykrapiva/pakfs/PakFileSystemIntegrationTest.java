@@ -0,0 +1,195 @@
+package io.github.ykrapiva.pakfs;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PakFileSystemIntegrationTest {
+    @TempDir
+    private Path tempDir;
+
+    private Path testPakPath;
+    private PakPath rootPath;
+    private String[] testPakEntries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        testPakPath = tempDir.resolve("test.pak");
+
+        testPakEntries = new String[]{
+                "maps/level1.bsp",
+                "maps/level2.bsp",
+                "textures/texture.tga",
+                "palette.pcx"
+        };
+
+        PakFileCreator.createPakFile(testPakPath, testPakEntries);
+
+        rootPath = PakPath.get(testPakPath);
+    }
+
+    @SuppressWarnings("resource")
+    @Test
+    void test() throws Exception {
+        assertThat(rootPath).isInstanceOf(PakPath.class);
+        assertThat(Files.isDirectory(rootPath)).isTrue();
+        assertThat(Files.isRegularFile(rootPath)).isFalse();
+
+        List<String> entries = StreamSupport.stream(Files.newDirectoryStream(rootPath).spliterator(), false)
+                .map(Path::toString)
+                .collect(Collectors.toList());
+        assertThat(entries).containsOnly(testPakEntries);
+
+        Path pakEntryPath1 = rootPath.resolve("maps/level1.bsp");
+        assertThat(pakEntryPath1).isInstanceOf(PakPath.class);
+
+        try (InputStream is = Files.newInputStream(pakEntryPath1)) {
+            assertThat(IOUtils.toString(is, StandardCharsets.UTF_8))
+                    .isEqualTo("maps/level1.bsp");
+        }
+
+        URI uri = URI.create("pak:" + testPakPath.toAbsolutePath() + "!maps/level2.bsp");
+        Path pakEntryPath2 = Paths.get(uri);
+        assertThat(pakEntryPath2).isInstanceOf(PakPath.class);
+
+        for (int i = 0; i < 5; i++) {
+            try (InputStream is = Files.newInputStream(pakEntryPath2)) {
+                assertThat(IOUtils.toString(is, StandardCharsets.UTF_8))
+                        .isEqualTo("maps/level2.bsp");
+            }
+        }
+    }
+
+    @Test
+    void reading() throws IOException {
+        Path path = rootPath.resolve("palette.pcx");
+        try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+            ByteBuffer buffer1 = ByteBuffer.allocate(4);
+            ByteBuffer buffer2 = ByteBuffer.allocate(7);
+            channel.read(buffer1);
+            channel.read(buffer2);
+            String s1 = new String(buffer1.array(), StandardCharsets.UTF_8);
+            String s2 = new String(buffer2.array(), StandardCharsets.UTF_8);
+            assertThat(s1 + s2).isEqualTo("palette.pcx");
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void reading_whenEntryIsBeyond2GB_readsIt(boolean mapped) throws IOException {
+        Path largePakPath = tempDir.resolve("large.pak");
+        long entryOffset = 3L << 30;
+        byte[] content = "maps/remastered.bsp".getBytes(StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(largePakPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+            channel.write(ByteBuffer.wrap(content), entryOffset);
+
+            ByteBuffer directory = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+            directory.put(content).position(56);
+            directory.putInt((int) entryOffset).putInt(content.length).flip();
+            long directoryOffset = entryOffset + content.length;
+            channel.write(directory, directoryOffset);
+
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            header.put("PACK".getBytes(StandardCharsets.US_ASCII)).putInt((int) directoryOffset).putInt(64).flip();
+            channel.write(header, 0);
+        }
+
+        URI uri = URI.create("pak:" + largePakPath.toAbsolutePath());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.singletonMap("mapped", mapped))) {
+            Path path = fileSystem.getPath("maps/remastered.bsp");
+
+            assertThat(Files.readAttributes(path, PakFileAttributes.class).offset()).isEqualTo(entryOffset);
+            assertThat(Files.readAllBytes(path)).isEqualTo(content);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void reading_whenEntriesAreCompressed_readsUncompressedContent(boolean mapped) throws IOException {
+        Path daikatanaPakPath = tempDir.resolve("daikatana.pak");
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        // Eight 72-byte records are also nine 64-byte ones, so the layout has to be told apart by the content
+        for (int i = 0; i < 8; i++) {
+            StringBuilder content = new StringBuilder();
+            for (int j = 0; j < 1000 * (i + 1); j++) {
+                content.append("line ").append(j % 10).append('\n');
+            }
+            entries.put("scripts/script" + i + ".txt", content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        PakFileCreator.createDaikatanaPakFile(daikatanaPakPath, entries);
+
+        URI uri = URI.create("pak:" + daikatanaPakPath.toAbsolutePath());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.singletonMap("mapped", mapped))) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                Path path = fileSystem.getPath(entry.getKey());
+                byte[] content = entry.getValue();
+
+                PakFileAttributes attributes = Files.readAttributes(path, PakFileAttributes.class);
+                assertThat(attributes.size()).isEqualTo(content.length);
+                assertThat(attributes.storedSize()).isLessThan(content.length);
+                assertThat(Files.readAllBytes(path)).isEqualTo(content);
+
+                try (SeekableByteChannel channel = Files.newByteChannel(path)) {
+                    assertThat(channel.size()).isEqualTo(content.length);
+                    ByteBuffer buffer = ByteBuffer.allocate(10);
+                    channel.position(content.length - 10).read(buffer);
+                    assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(content, content.length - 10, content.length));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void warm(boolean mapped) throws Exception {
+        Path warmPakPath = tempDir.resolve("warm.pak");
+        PakFileCreator.createPakFile(warmPakPath, testPakEntries);
+        URI uri = URI.create("pak:" + warmPakPath.toAbsolutePath());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.singletonMap("mapped", mapped))) {
+            PakFileSystem pakFileSystem = (PakFileSystem) fileSystem;
+            long dataSize = 0;
+            for (String entry : testPakEntries) {
+                dataSize += entry.length();
+            }
+
+            assertThat(pakFileSystem.warmAll().get(10, TimeUnit.SECONDS)).isEqualTo(dataSize);
+            assertThat(pakFileSystem.warm(Collections.singletonList(fileSystem.getPath("palette.pcx"))).get(10, TimeUnit.SECONDS))
+                    .isEqualTo("palette.pcx".length());
+            assertThatThrownBy(() -> pakFileSystem.warm(Collections.singletonList(fileSystem.getPath("missing"))).get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(NoSuchFileException.class);
+        }
+    }
+}
@@ -0,0 +1,538 @@
+package io.github.ykrapiva.pakfs;
+
+import com.google.common.hash.Hashing;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PakFileSystemProviderTest {
+    @TempDir
+    private Path tempDir;
+    private URI testPakUri;
+    private final PakFileSystemProvider subject = new PakFileSystemProvider();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path testPak = tempDir.resolve("test.pak");
+
+        String[] testPakEntries = {
+                "maps/level1.bsp",
+                "maps/level2.bsp",
+                "textures/texture.tga",
+                "palette.pcx"
+        };
+
+        PakFileCreator.createPakFile(testPak, testPakEntries);
+
+        testPakUri = URI.create("pak:" + testPak);
+    }
+
+    @Test
+    void getScheme() {
+        assertThat(subject.getScheme()).isEqualTo("pak");
+    }
+
+    @Test
+    @SuppressWarnings("resource")
+    void newFileSystem() {
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        assertThat(fileSystem).isNotNull();
+        assertThrows(FileSystemAlreadyExistsException.class, () -> subject.newFileSystem(testPakUri, Collections.emptyMap()));
+    }
+
+    @Test
+    void newFileSystem_withPreloadOption_loadsIndexInBackground() throws Exception {
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.singletonMap("preload", true));
+        assertThat(fileSystem.preload().get(10, TimeUnit.SECONDS)).isSameAs(fileSystem);
+        assertThrows(IllegalArgumentException.class, () -> subject.newFileSystem(URI.create(testPakUri + "2"), Collections.singletonMap("preload", "yes")));
+    }
+
+    @Test
+    void newFileSystem_withNameFilterSidecar_answersAbsentNamesBeforeLoadingTheIndex() throws IOException {
+        Map<String, Object> env = Collections.singletonMap("nameFilterSidecar", true);
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, env)) {
+            assertThat(Files.exists(fileSystem.getPath("palette.pcx"))).isTrue();
+        }
+        assertThat(PakFile.nameFilterPath(Paths.get(testPakUri.getSchemeSpecificPart()))).exists();
+
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, env)) {
+            assertThat(Files.exists(fileSystem.getPath("maps/missing.bsp"))).isFalse();
+            assertThat(fileSystem.pakFile.peekIndex()).isNull();
+
+            assertThat(Files.exists(fileSystem.getPath("maps/level1.bsp"))).isTrue();
+            assertThat(fileSystem.pakFile.peekIndex()).isNotNull();
+        }
+    }
+
+    @Test
+    void close_whenProfileCannotBeWritten_throwsUncheckedIOExceptionAndCloses() throws IOException {
+        Path profilePath = tempDir.resolve("missing/test.profile");
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.singletonMap("recordProfile", profilePath.toString()));
+        Files.readAllBytes(fileSystem.getPath("palette.pcx"));
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, fileSystem::close);
+        assertThat(e.getCause()).isInstanceOf(IOException.class);
+        assertThat(fileSystem.isOpen()).isFalse();
+        assertThat(fileSystem.pakFile.peekIndex()).isNull();
+    }
+
+    @Test
+    void newFileSystem_withRecordProfileOption_writesProfileReplayedByNextMount() throws Exception {
+        Path profilePath = tempDir.resolve("test.profile");
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.singletonMap("recordProfile", profilePath.toString()))) {
+            Files.readAllBytes(fileSystem.getPath("palette.pcx"));
+            Files.readAllBytes(fileSystem.getPath("maps/level1.bsp"));
+            Files.readAllBytes(fileSystem.getPath("palette.pcx"));
+        }
+
+        PakAccessProfile profile = PakAccessProfile.read(profilePath);
+        assertThat(profile.size()).isEqualTo(2);
+        assertThat(profile.ordinal(0)).isEqualTo(3);
+        assertThat(profile.ordinal(1)).isEqualTo(0);
+        assertThat(profile.time(1)).isGreaterThanOrEqualTo(profile.time(0));
+
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.singletonMap("replayProfile", profilePath))) {
+            assertThat(fileSystem.replay(profilePath).get(10, TimeUnit.SECONDS))
+                    .isEqualTo("palette.pcx".length() + "maps/level1.bsp".length());
+            assertThat(fileSystem.replay(tempDir.resolve("missing.profile")).get(10, TimeUnit.SECONDS)).isZero();
+        }
+    }
+
+    @Test
+    void newFileSystem_withBufferOption_mountsArchiveInMemory() throws IOException {
+        byte[] pakBytes = Files.readAllBytes(Paths.get(testPakUri.getSchemeSpecificPart()));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(pakBytes.length);
+        buffer.put(pakBytes).flip();
+        URI uri = URI.create("pak:source:memory.pak");
+
+        try (PakFileSystem fileSystem = subject.newFileSystem(uri, Collections.singletonMap("buffer", buffer))) {
+            Path path = fileSystem.getPath("textures/texture.tga");
+            assertThat(Files.readAllBytes(path)).isEqualTo("textures/texture.tga".getBytes(StandardCharsets.UTF_8));
+            assertThat(subject.getPath(URI.create("pak:source:memory.pak!palette.pcx")).getFileSystem()).isSameAs(fileSystem);
+
+            ByteBuffer content = fileSystem.readBuffer(path);
+            assertThat(content.isReadOnly()).isTrue();
+            assertThat(content.isDirect()).isTrue();
+            assertThat(StandardCharsets.UTF_8.decode(content).toString()).isEqualTo("textures/texture.tga");
+        }
+        assertThrows(IllegalArgumentException.class, () -> subject.newFileSystem(uri, Collections.emptyMap()));
+    }
+
+    @Test
+    void getFileSystem() {
+        assertThrows(FileSystemNotFoundException.class, () -> subject.getFileSystem(testPakUri));
+
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        assertThat(subject.getFileSystem(testPakUri)).isSameAs(fileSystem);
+    }
+
+    @Test
+    void getOrCreateFileSystem() throws IOException {
+        PakFileSystem fileSystem1 = subject.getOrCreateFileSystem(testPakUri);
+        PakFileSystem fileSystem2 = subject.getOrCreateFileSystem(testPakUri);
+        PakFileSystem fileSystem3 = subject.getOrCreateFileSystem(URI.create(testPakUri.toString() + "!map/level.bsp"));
+        assertThat(fileSystem1).isNotNull();
+        assertThat(fileSystem2).isSameAs(fileSystem1);
+        assertThat(fileSystem3).isSameAs(fileSystem1);
+    }
+
+    @Test
+    void close() {
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        fileSystem.close();
+
+        assertThat(fileSystem.isOpen()).isFalse();
+        assertThrows(FileSystemNotFoundException.class, () -> subject.getFileSystem(testPakUri));
+        assertThat(subject.newFileSystem(testPakUri, Collections.emptyMap())).isNotSameAs(fileSystem);
+    }
+
+    @Test
+    void newFileSystem_whenSameArchiveUsesDifferentUriSpelling_sharesIndex() throws IOException {
+        Files.createDirectory(tempDir.resolve("dir"));
+        URI otherSpellingUri = URI.create("pak:" + tempDir.resolve("dir/../test.pak"));
+
+        PakFileSystem fileSystem1 = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        PakFileSystem fileSystem2 = subject.newFileSystem(otherSpellingUri, Collections.emptyMap());
+        assertThat(fileSystem2).isNotSameAs(fileSystem1);
+        assertThat(fileSystem2.pakFile).isSameAs(fileSystem1.pakFile);
+
+        fileSystem1.close();
+        assertThat(fileSystem2.exists(fileSystem2.getPath("maps/level1.bsp"))).isTrue();
+
+        fileSystem2.close();
+        PakFileSystem fileSystem3 = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        assertThat(fileSystem3.pakFile).isNotSameAs(fileSystem1.pakFile);
+    }
+
+    @Test
+    void getPath() {
+        URI uri = URI.create(testPakUri.toString() + "!map/level.bsp");
+        Path path = subject.getPath(uri);
+        assertThat(path).isInstanceOf(PakPath.class);
+        assertThat(path.toUri()).isEqualTo(uri);
+    }
+
+    @Test
+    void newByteChannel() throws IOException {
+        Path path = Paths.get(URI.create(testPakUri + "!maps/level1.bsp"));
+        try (SeekableByteChannel channel = subject.newByteChannel(path, Collections.emptySet(), (FileAttribute<?>[]) null)) {
+            Reader reader = Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), -1);
+            assertThat(IOUtils.toString(reader)).isEqualTo("maps/level1.bsp");
+        }
+    }
+
+    @Test
+    @SuppressWarnings("resource")
+    void newByteChannel_whenNonSingleReadOptionSpecified_returnsUnsupportedOperationException() {
+        Path path = Paths.get(URI.create(testPakUri + "!maps/level1.bsp"));
+        assertThrows(UnsupportedOperationException.class, () -> subject.newByteChannel(path, new HashSet<>(Arrays.asList(READ, WRITE)), (FileAttribute<?>[]) null));
+    }
+
+    @Test
+    void newInputStream() throws IOException {
+        Path path = Paths.get(URI.create(testPakUri + "!maps/level1.bsp"));
+        try (InputStream inputStream = subject.newInputStream(path)) {
+            assertThat(inputStream).isInstanceOf(PakEntryInputStream.class);
+            PakEntryInputStream entryInputStream = (PakEntryInputStream) inputStream;
+
+            assertThat(inputStream.available()).isEqualTo(15);
+            assertThat(inputStream.skip(5)).isEqualTo(5);
+            assertThat(inputStream.read()).isEqualTo('l');
+            assertThat(inputStream.available()).isEqualTo(9);
+            assertThat(entryInputStream.readNBytes(5)).isEqualTo("evel1".getBytes(StandardCharsets.UTF_8));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThat(entryInputStream.transferTo(out)).isEqualTo(4);
+            assertThat(out.toString("UTF-8")).isEqualTo(".bsp");
+            assertThat(inputStream.read()).isEqualTo(-1);
+            assertThat(entryInputStream.readAllBytes()).isEmpty();
+        }
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            assertThat(((PakEntryInputStream) inputStream).readAllBytes())
+                    .isEqualTo("maps/level1.bsp".getBytes(StandardCharsets.UTF_8));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> subject.newInputStream(path, WRITE));
+    }
+
+    @Test
+    void newInputStream_whenClosed_throwsIOException() throws IOException {
+        Path path = Paths.get(URI.create(testPakUri + "!maps/level1.bsp"));
+        InputStream inputStream = subject.newInputStream(path);
+        inputStream.mark(0);
+        inputStream.close();
+
+        assertThrows(IOException.class, () -> inputStream.skip(1));
+        assertThrows(IOException.class, inputStream::reset);
+        assertThrows(IOException.class, inputStream::read);
+    }
+
+    @Test
+    @SuppressWarnings("resource")
+    void newDirectoryStream() throws IOException {
+        Path rootPath = Paths.get(testPakUri);
+        Path entryPath = Paths.get(URI.create(testPakUri + "!maps/level1.bsp"));
+
+        List<Path> pakFileEntries = StreamSupport.stream(subject.newDirectoryStream(rootPath, path -> true).spliterator(), false).collect(Collectors.toList());
+        assertThat(pakFileEntries).containsOnly(
+                Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp")),
+                Paths.get(URI.create(testPakUri.toString() + "!maps/level2.bsp")),
+                Paths.get(URI.create(testPakUri.toString() + "!textures/texture.tga")),
+                Paths.get(URI.create(testPakUri.toString() + "!palette.pcx"))
+        );
+
+        assertThrows(NotDirectoryException.class, () -> subject.newDirectoryStream(entryPath, path -> true));
+    }
+
+    @Test
+    void newDirectoryStream_withIterationOrderOption_listsInThatOrder() throws IOException {
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.singletonMap("iterationOrder", "name"))) {
+            List<String> names = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileSystem.getPath("/"))) {
+                stream.forEach(path -> names.add(path.toString()));
+            }
+            assertThat(names).containsExactly("maps/level1.bsp", "maps/level2.bsp", "palette.pcx", "textures/texture.tga");
+        }
+        assertThrows(IllegalArgumentException.class, () -> subject.newFileSystem(testPakUri, Collections.singletonMap("iterationOrder", "size")));
+    }
+
+    @Test
+    void createDirectory() {
+        assertThrows(UnsupportedOperationException.class, () -> subject.createDirectory(Paths.get("/dir")));
+    }
+
+    @Test
+    void delete() {
+        assertThrows(UnsupportedOperationException.class, () -> subject.delete(Paths.get("/dir")));
+    }
+
+    @Test
+    void copy() {
+        assertThrows(UnsupportedOperationException.class, () -> subject.copy(Paths.get("/from"), Paths.get("/to")));
+    }
+
+    @Test
+    void move() {
+        assertThrows(UnsupportedOperationException.class, () -> subject.move(Paths.get("/from"), Paths.get("/to")));
+    }
+
+    @Test
+    void isSameFile() {
+        Path path1 = Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp"));
+        Path path2 = Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp"));
+        Path path3 = Paths.get(URI.create(testPakUri.toString() + "!maps/level2.bsp"));
+
+        assertThat(subject.isSameFile(path1, path2)).isTrue();
+        assertThat(subject.isSameFile(path1, path3)).isFalse();
+    }
+
+    @Test
+    void isHidden() {
+        assertThat(subject.isHidden(Paths.get("/file"))).isFalse();
+    }
+
+    @Test
+    void checkAccess() throws Exception {
+        Path validPath = Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp"));
+        Path invalidPath = Paths.get(URI.create(testPakUri.toString() + "!non-existent-file.bsp"));
+
+        subject.checkAccess(validPath);
+        subject.checkAccess(validPath, AccessMode.READ);
+        assertThrows(NoSuchFileException.class, () -> subject.checkAccess(invalidPath));
+        assertThrows(AccessDeniedException.class, () -> subject.checkAccess(validPath, AccessMode.WRITE));
+        assertThrows(AccessDeniedException.class, () -> subject.checkAccess(validPath, AccessMode.EXECUTE));
+        assertThrows(AccessDeniedException.class, () -> subject.checkAccess(validPath, AccessMode.READ, AccessMode.WRITE));
+        assertThrows(AccessDeniedException.class, () -> subject.checkAccess(invalidPath, AccessMode.WRITE));
+        assertThrows(AccessDeniedException.class, () -> subject.checkAccess(invalidPath, AccessMode.EXECUTE));
+    }
+
+    @Test
+    void getFileAttributeView() throws IOException {
+        Path validPath = Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp"));
+
+        assertThat(subject.getFileAttributeView(tempDir, FileAttributeView.class, (LinkOption[]) null)).isNull();
+        assertThat(subject.getFileAttributeView(validPath, BasicFileAttributeView.class).name()).isEqualTo("basic");
+
+        PakFileAttributeView view = subject.getFileAttributeView(validPath, PakFileAttributeView.class);
+        assertThat(view.name()).isEqualTo("pak");
+        assertThat(view.readAttributes().size()).isEqualTo(15);
+        assertThrows(UnsupportedOperationException.class, () -> view.setTimes(null, null, null));
+    }
+
+    @Test
+    void readAttributes() throws Exception {
+        Path rootPath = Paths.get(testPakUri);
+        Path validPath = Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp"));
+        Path invalidPath = Paths.get(URI.create(testPakUri.toString() + "!non-existent-file.bsp"));
+
+        PakPathAttributes attributes = subject.readAttributes(rootPath, PakPathAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+        assertThat(attributes).isNotNull();
+        assertThat(attributes.isDirectory()).isTrue();
+        assertThat(attributes.isRegularFile()).isFalse();
+        assertThat(attributes.size()).isEqualTo(0);
+        assertThat(attributes.lastModifiedTime()).isNull();
+        assertThat(attributes.lastAccessTime()).isNull();
+        assertThat(attributes.creationTime()).isNull();
+        assertThat(attributes.isSymbolicLink()).isFalse();
+        assertThat(attributes.isOther()).isFalse();
+        assertThat(attributes.fileKey()).isNull();
+
+        attributes = subject.readAttributes(validPath, PakPathAttributes.class, LinkOption.NOFOLLOW_LINKS);
+
+        assertThat(attributes).isNotNull();
+        assertThat(attributes.isDirectory()).isFalse();
+        assertThat(attributes.isRegularFile()).isTrue();
+        assertThat(attributes.size()).isEqualTo(15);
+        assertThat(attributes.lastModifiedTime()).isNull();
+        assertThat(attributes.lastAccessTime()).isNull();
+        assertThat(attributes.creationTime()).isNull();
+        assertThat(attributes.isSymbolicLink()).isFalse();
+        assertThat(attributes.isOther()).isFalse();
+        assertThat(attributes.fileKey()).isNull();
+
+        assertThrows(NoSuchFileException.class, () -> subject.readAttributes(invalidPath, PakPathAttributes.class, LinkOption.NOFOLLOW_LINKS));
+        assertThrows(UnsupportedOperationException.class, () -> subject.readAttributes(validPath, PosixFileAttributes.class));
+    }
+
+    @Test
+    void readPakAttributes() throws Exception {
+        Path validPath = Paths.get(URI.create(testPakUri.toString() + "!maps/level2.bsp"));
+
+        PakFileAttributes attributes = subject.readAttributes(validPath, PakFileAttributes.class);
+
+        assertThat(attributes.offset()).isEqualTo(27);
+        assertThat(attributes.storedSize()).isEqualTo(15);
+        assertThat(attributes.contentHash())
+                .isEqualTo(Hashing.sha256().hashString("maps/level2.bsp", StandardCharsets.UTF_8).toString());
+    }
+
+    @Test
+    void readPakAttributes_withContentHashSidecarOption_reusesHashesOfPreviousMount() throws Exception {
+        Map<String, Object> env = Collections.singletonMap("contentHashSidecar", true);
+        String hash = Hashing.sha256().hashString("palette.pcx", StandardCharsets.UTF_8).toString();
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, env)) {
+            assertThat(Files.getAttribute(fileSystem.getPath("palette.pcx"), "pak:contentHash")).isEqualTo(hash);
+        }
+        Path sidecar = PakFile.sidecarPath(Paths.get(testPakUri.getSchemeSpecificPart()));
+        List<String> lines = Files.readAllLines(sidecar);
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(1)).endsWith(" " + hash);
+
+        // A hash read from the sidecar is not computed again
+        String cachedHash = hash.replace(hash.charAt(0), hash.charAt(0) == 'f' ? 'e' : 'f');
+        Files.write(sidecar, Arrays.asList(lines.get(0), lines.get(1).replace(hash, cachedHash)));
+        try (PakFileSystem fileSystem = subject.newFileSystem(testPakUri, env)) {
+            assertThat(Files.getAttribute(fileSystem.getPath("palette.pcx"), "pak:contentHash")).isEqualTo(cachedHash);
+        }
+    }
+
+    @Test
+    void readAttributesAsMap() throws Exception {
+        Path rootPath = Paths.get(testPakUri);
+        Path validPath = Paths.get(URI.create(testPakUri.toString() + "!maps/level1.bsp"));
+
+        Map<String, Object> attributes = subject.readAttributes(rootPath, "*", LinkOption.NOFOLLOW_LINKS);
+        assertThat(attributes).hasSize(9)
+                .containsEntry("isDirectory", true)
+                .containsEntry("size", 0L);
+
+        attributes = subject.readAttributes(validPath, "size,isRegularFile");
+        assertThat(attributes).containsOnly(entry("size", 15L), entry("isRegularFile", true));
+
+        attributes = subject.readAttributes(validPath, "pak:*");
+        assertThat(attributes).hasSize(11)
+                .containsEntry("offset", 12L)
+                .containsEntry("storedSize", 15L)
+                .doesNotContainKey("contentHash");
+
+        attributes = subject.readAttributes(validPath, "pak:*,contentHash");
+        assertThat(attributes).hasSize(12)
+                .containsKey("contentHash");
+
+        assertThrows(IllegalArgumentException.class, () -> subject.readAttributes(validPath, "basic:offset"));
+        assertThrows(UnsupportedOperationException.class, () -> subject.readAttributes(validPath, "posix:*"));
+        assertThrows(NoSuchFileException.class, () -> subject.readAttributes(Paths.get(URI.create(testPakUri.toString() + "!non-existent-file.bsp")), "*"));
+    }
+
+    @Test
+    void setAttribute() {
+        Path path = Paths.get(testPakUri);
+        assertThrows(UnsupportedOperationException.class, () -> subject.setAttribute(path, "attr", "value"));
+    }
+
+    @Test
+    void setResourceLimits_closesLeastRecentlyUsedChannels() throws IOException {
+        subject.setResourceLimits(2, 0);
+        List<PakFileSystem> fileSystems = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Path pakPath = tempDir.resolve("test" + i + ".pak");
+            PakFileCreator.createPakFile(pakPath, "maps/level" + i + ".bsp");
+            fileSystems.add(subject.newFileSystem(URI.create("pak:" + pakPath), Collections.emptyMap()));
+        }
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < fileSystems.size(); i++) {
+                Path path = fileSystems.get(i).getPath("maps/level" + i + ".bsp");
+                assertThat(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)).isEqualTo("maps/level" + i + ".bsp");
+                assertThat(subject.resourceManager.getOpenFiles()).isLessThanOrEqualTo(2);
+            }
+        }
+    }
+
+    @Test
+    void close_whenArchiveIsReadAfterwards_failsWithoutReopeningIt() throws IOException {
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        PakFile pakFile = fileSystem.pakFile;
+        PakFileEntry entry = pakFile.getIndex().get("palette.pcx");
+        assertThat(pakFile.computeContentHash(entry, PakIoPriority.BULK))
+                .isEqualTo(Hashing.sha256().hashString("palette.pcx", StandardCharsets.UTF_8).toString());
+
+        fileSystem.close();
+
+        assertThrows(ClosedChannelException.class, () -> pakFile.computeContentHash(entry, PakIoPriority.BULK));
+        assertThrows(ClosedChannelException.class, pakFile::readDirectoryRange);
+        assertThat(pakFile.peekIndex()).isNull();
+        assertThat(subject.resourceManager.getOpenFiles()).isZero();
+    }
+
+    @Test
+    void close_cancelsWarmUps() throws Exception {
+        PakFileSystem fileSystem = subject.newFileSystem(testPakUri, Collections.emptyMap());
+        CountDownLatch closed = new CountDownLatch(1);
+        CompletableFuture<Long> warmUp = fileSystem.pakFile.warm(() -> {
+            closed.await();
+            return new ArrayList<>(fileSystem.pakFile.getIndex().entries());
+        }, false);
+
+        fileSystem.close();
+        closed.countDown();
+
+        assertThat(warmUp).isCancelled();
+        assertThat(fileSystem.pakFile.warm(Collections::emptyList, false)).isCancelled();
+    }
+
+    @Test
+    void setResourceLimits_dropsLeastRecentlyUsedMappings() throws IOException {
+        subject.setResourceLimits(1, 1);
+        Map<String, Object> env = Collections.singletonMap("mapped", true);
+        PakFileSystem fileSystem1 = subject.newFileSystem(testPakUri, env);
+        Path otherPakPath = tempDir.resolve("other.pak");
+        PakFileCreator.createPakFile(otherPakPath, "maps/other.bsp");
+        PakFileSystem fileSystem2 = subject.newFileSystem(URI.create("pak:" + otherPakPath), env);
+
+        assertThat(Files.readAllBytes(fileSystem1.getPath("palette.pcx"))).isEqualTo("palette.pcx".getBytes(StandardCharsets.UTF_8));
+        long mappedBytes = subject.resourceManager.getHeldMappedBytes();
+        assertThat(Files.readAllBytes(fileSystem2.getPath("maps/other.bsp"))).isEqualTo("maps/other.bsp".getBytes(StandardCharsets.UTF_8));
+        assertThat(subject.resourceManager.getHeldMappedBytes()).isEqualTo(Files.size(otherPakPath));
+        assertThat(Files.readAllBytes(fileSystem1.getPath("palette.pcx"))).isEqualTo("palette.pcx".getBytes(StandardCharsets.UTF_8));
+        assertThat(subject.resourceManager.getHeldMappedBytes()).isEqualTo(mappedBytes);
+
+        fileSystem1.close();
+        assertThat(subject.resourceManager.getHeldMappedBytes()).isZero();
+    }
+}
@@ -0,0 +1,383 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PakFileSystemTest {
+    @Spy
+    private PakFileSystemProvider provider = new PakFileSystemProvider();
+    @TempDir
+    private Path tempDir;
+    private PakFileSystem subject;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path testPak = tempDir.resolve("test.pak");
+
+        String[] testPakEntries = {
+                "maps/level1.bsp",
+                "maps/level2.bsp",
+                "textures/texture.tga",
+                "palette.pcx"
+        };
+
+        PakFileCreator.createPakFile(testPak, testPakEntries);
+
+        URI testPakUri = URI.create("file:" + testPak);
+
+        subject = new PakFileSystem(provider, testPakUri);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (subject != null) {
+            subject.close();
+        }
+    }
+
+    @Test
+    void reloadInterval_isOffByDefault() {
+        assertThat(PakFileSystemOptions.from(Collections.emptyMap()).getReloadIntervalNanos()).isZero();
+        assertThat(PakFileSystemOptions.from(Collections.singletonMap("reloadInterval", 250)).getReloadIntervalNanos())
+                .isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void caseInsensitive_matchesNamesIgnoringAsciiCase() throws IOException {
+        Path pakPath = tempDir.resolve("case.pak");
+        PakFileCreator.createPakFile(pakPath, "MAPS/E1M1.bsp", "maps/e1m1.BSP", "sound/Ambience.wav");
+        try (PakFileSystem fileSystem = new PakFileSystem(provider, URI.create("file:" + pakPath),
+                PakFileSystemOptions.from(Collections.singletonMap("caseInsensitive", true)))) {
+            assertThat(Files.readAllBytes(fileSystem.getPath("maps/e1m1.bsp"))).isEqualTo("MAPS/E1M1.bsp".getBytes(StandardCharsets.UTF_8));
+            assertThat(Files.readAllBytes(fileSystem.getPath("maps/e1m1.BSP"))).isEqualTo("MAPS/E1M1.bsp".getBytes(StandardCharsets.UTF_8));
+            Path sound = fileSystem.getPath("SOUND", "AMBIENCE.WAV");
+            assertThat(sound.toString()).isEqualTo("SOUND/AMBIENCE.WAV");
+            assertThat(Files.exists(sound)).isTrue();
+            assertThat(Files.exists(fileSystem.getPath("sound/ambience.wa"))).isFalse();
+
+            List<String> names = StreamSupport.stream(Files.newDirectoryStream(fileSystem.getPath("/")).spliterator(), false)
+                    .map(Path::toString)
+                    .collect(Collectors.toList());
+            assertThat(names).containsExactly("MAPS/E1M1.bsp", "maps/e1m1.BSP", "sound/Ambience.wav");
+        }
+        assertThat(Files.exists(subject.getPath("PALETTE.PCX"))).isFalse();
+    }
+
+    @Test
+    void provider() {
+        assertThat(subject.provider).isSameAs(provider);
+    }
+
+    @Test
+    void close() throws IOException {
+        SeekableByteChannel channel = subject.newReadOnlyChannel(subject.getPath("maps/level1.bsp"));
+
+        assertThat(subject.isOpen()).isTrue();
+        subject.close();
+        assertThat(subject.isOpen()).isFalse();
+        assertThat(channel.isOpen()).isFalse();
+        assertThrows(ClosedFileSystemException.class, () -> subject.exists(subject.getPath("maps/level1.bsp")));
+        verify(provider).removeFileSystem(subject);
+        verify(provider).releasePakFile(subject.pakFile);
+    }
+
+    @Test
+    void isReadOnly() {
+        assertThat(subject.isReadOnly()).isTrue();
+    }
+
+    @Test
+    void getSeparator() {
+        assertThat(subject.getSeparator()).isEqualTo("/");
+    }
+
+    @Test
+    void getRootDirectories() {
+        List<Path> rootDirectories = StreamSupport.stream(subject.getRootDirectories().spliterator(), false).collect(Collectors.toList());
+        assertThat(rootDirectories).containsExactly(new PakPath(subject, "/"));
+    }
+
+    @Test
+    void getFileStores() {
+        assertThat(subject.getFileStores()).isEmpty();
+    }
+
+    @Test
+    void supportedFileAttributeViews() {
+        assertThat(subject.supportedFileAttributeViews()).containsExactly("basic", "pak");
+    }
+
+    @Test
+    void getPath() {
+        assertThat(subject.getPath("").toString()).isEqualTo("/");
+        assertThat(subject.getPath("world").toString()).isEqualTo("world");
+        assertThat(subject.getPath("world", "maps", "level1.bsp").toString()).isEqualTo("world/maps/level1.bsp");
+    }
+
+    @Test
+    void getPathMatcher() {
+        assertThrows(UnsupportedOperationException.class, () -> subject.getPathMatcher("maps"));
+    }
+
+    @Test
+    void getUserPrincipalLookupService() {
+        assertThrows(UnsupportedOperationException.class, () -> subject.getUserPrincipalLookupService());
+    }
+
+    @Test
+    void newWatchService() throws Exception {
+        PakPath entryPath = subject.getPath("maps/level1.bsp");
+        String contentBefore = readString(entryPath);
+
+        try (WatchService watchService = subject.newWatchService()) {
+            WatchKey watchKey = subject.getPath("/").register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            SeekableByteChannel channel = subject.newReadOnlyChannel(entryPath);
+
+            Path newPak = tempDir.resolve("new.pak");
+            PakFileCreator.createPakFile(newPak, "textures/texture.tga", "maps/level1.bsp", "maps/level3.bsp");
+            Files.move(newPak, tempDir.resolve("test.pak"), StandardCopyOption.REPLACE_EXISTING);
+
+            subject.pakFile.reloadIfChanged();
+
+            assertThat(watchService.poll()).isSameAs(watchKey);
+            assertThat(watchKey.pollEvents()).extracting(WatchEvent::kind, event -> event.context().toString())
+                    .containsExactlyInAnyOrder(
+                            tuple(ENTRY_MODIFY, "textures/texture.tga"),
+                            tuple(ENTRY_MODIFY, "maps/level1.bsp"),
+                            tuple(ENTRY_CREATE, "maps/level3.bsp"),
+                            tuple(ENTRY_DELETE, "maps/level2.bsp"),
+                            tuple(ENTRY_DELETE, "palette.pcx"));
+            assertThat(watchKey.reset()).isTrue();
+
+            // The channel opened before the reload keeps reading the previous snapshot
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            channel.read(buffer);
+            assertThat(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8)).isEqualTo(contentBefore);
+            channel.close();
+
+            assertThat(subject.exists(subject.getPath("maps/level2.bsp"))).isFalse();
+            assertThat(subject.exists(entryPath)).isTrue();
+            assertThat(subject.readAttributes(entryPath).offset()).isEqualTo(32);
+        }
+    }
+
+    @Test
+    void newWatchService_reportsOnlyRegisteredKinds() throws Exception {
+        assertThat(subject.exists(subject.getPath("palette.pcx"))).isTrue();
+
+        try (WatchService watchService = subject.newWatchService()) {
+            WatchKey watchKey = subject.getPath("/").register(watchService, ENTRY_DELETE);
+
+            Path newPak = tempDir.resolve("new.pak");
+            PakFileCreator.createPakFile(newPak, "textures/texture.tga", "maps/level1.bsp", "maps/level3.bsp");
+            Files.move(newPak, tempDir.resolve("test.pak"), StandardCopyOption.REPLACE_EXISTING);
+
+            subject.pakFile.reloadIfChanged();
+
+            assertThat(watchService.poll()).isSameAs(watchKey);
+            assertThat(watchKey.pollEvents()).extracting(WatchEvent::kind, event -> event.context().toString())
+                    .containsExactlyInAnyOrder(
+                            tuple(ENTRY_DELETE, "maps/level2.bsp"),
+                            tuple(ENTRY_DELETE, "palette.pcx"));
+        }
+    }
+
+    @Test
+    void register_whenEventKindIsUnsupported_throwsUnsupportedOperationException() {
+        WatchEvent.Kind<Object> kind = new WatchEvent.Kind<Object>() {
+            @Override
+            public String name() {
+                return "CUSTOM";
+            }
+
+            @Override
+            public Class<Object> type() {
+                return Object.class;
+            }
+        };
+        assertThrows(UnsupportedOperationException.class, () -> subject.getPath("/").register(subject.newWatchService(), kind));
+    }
+
+    @Test
+    void register_whenPathIsNotRoot_throwsNotDirectoryException() {
+        assertThrows(NotDirectoryException.class, () -> subject.getPath("maps/level1.bsp").register(subject.newWatchService(), ENTRY_CREATE));
+    }
+
+    private String readString(PakPath path) throws IOException {
+        try (SeekableByteChannel channel = subject.newReadOnlyChannel(path)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            channel.read(buffer);
+            return new String(buffer.array(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void iterator() {
+        List<Path> subjectIteratorElements = new ArrayList<>();
+        subject.iterator(path -> path.toString().startsWith("maps"))
+                .forEachRemaining(subjectIteratorElements::add);
+
+        assertThat(subjectIteratorElements).allSatisfy(path -> assertThat(path).isInstanceOf(PakPath.class));
+        assertThat(subjectIteratorElements).map(Path::toString).containsOnly(
+                "maps/level1.bsp",
+                "maps/level2.bsp"
+        );
+    }
+
+    @Test
+    void iterator_returnsPathsWithResolvedEntries() {
+        List<Path> subjectIteratorElements = new ArrayList<>();
+        subject.iterator(path -> true).forEachRemaining(subjectIteratorElements::add);
+
+        assertThat(subjectIteratorElements).map(path -> ((PakPath) path).resolution)
+                .doesNotContainNull()
+                .map(resolution -> resolution.entry.getName())
+                .containsExactly("maps/level1.bsp", "maps/level2.bsp", "textures/texture.tga", "palette.pcx");
+    }
+
+    @Test
+    void exists_remembersResolvedEntry() throws IOException {
+        PakPath path = subject.getPath("maps/level2.bsp");
+        assertThat(path.resolution).isNull();
+
+        assertThat(subject.exists(path)).isTrue();
+        assertThat(path.resolution.entry).isSameAs(subject.pakFile.getIndex().get("maps/level2.bsp"));
+
+        PakPath missingPath = subject.getPath("maps/level3.bsp");
+        assertThat(subject.exists(missingPath)).isFalse();
+        assertThat(missingPath.resolution).isNull();
+    }
+
+    @Test
+    void readAttributes_whenArchiveHasDuplicateNames_usesFirstRecord() throws IOException {
+        Path testPak = tempDir.resolve("duplicates.pak");
+        PakFileCreator.createPakFile(testPak, "palette.pcx", "palette.pcx");
+
+        try (PakFileSystem fileSystem = new PakFileSystem(provider, URI.create("file:" + testPak))) {
+            assertThat(fileSystem.readAttributes(fileSystem.getPath("palette.pcx")).offset()).isEqualTo(12);
+        }
+    }
+
+    @Test
+    void preload() throws Exception {
+        assertThat(subject.preload().get(10, TimeUnit.SECONDS)).isSameAs(subject);
+        assertThat(subject.preload()).isCompletedWithValue(subject);
+    }
+
+    @Test
+    void preload_whenArchiveCannotBeRead_completesExceptionallyAndAllowsRetry() throws Exception {
+        Path testPak = tempDir.resolve("late.pak");
+
+        try (PakFileSystem fileSystem = new PakFileSystem(provider, URI.create("file:" + testPak))) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> fileSystem.preload().get(10, TimeUnit.SECONDS));
+            assertThat(exception).hasCauseInstanceOf(NoSuchFileException.class);
+
+            PakFileCreator.createPakFile(testPak, "palette.pcx");
+            assertThat(fileSystem.preload().get(10, TimeUnit.SECONDS)).isSameAs(fileSystem);
+            assertThat(fileSystem.exists(fileSystem.getPath("palette.pcx"))).isTrue();
+        }
+    }
+
+    @Test
+    void exists_whenCalledConcurrently_loadsIndexOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PakFileIndex>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> subject.pakFile.getIndex()));
+            }
+            PakFileIndex index = futures.get(0).get();
+            for (Future<PakFileIndex> future : futures) {
+                assertThat(future.get()).isSameAs(index);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void getPath_whenIndexIsLoaded_returnsCanonicalPaths() throws IOException {
+        PakPath pathBeforeLoad = subject.getPath("maps/level1.bsp");
+        subject.exists(pathBeforeLoad);
+
+        PakPath path = subject.getPath("maps/level1.bsp");
+        assertThat(path).isNotSameAs(pathBeforeLoad).isEqualTo(pathBeforeLoad);
+        assertThat(path.resolution).isSameAs(pathBeforeLoad.resolution);
+        assertThat(subject.getPath("maps/level1.bsp")).isSameAs(path);
+        assertThat(subject.getPath("maps", "level1.bsp")).isSameAs(path);
+        assertThat(subject.getPath("/").resolve("maps/level1.bsp")).isSameAs(path);
+        assertThat(subject.getPath("maps").resolve("level1.bsp")).isSameAs(path);
+        assertThat(subject.getPath("maps").resolve("level3.bsp").toString()).isEqualTo("maps/level3.bsp");
+        assertThat(subject.getPath("map").resolve("s/level1.bsp").toString()).isEqualTo("map/s/level1.bsp");
+        assertThat(subject.getPath("/")).isSameAs(subject.rootPath);
+    }
+
+    @Test
+    void getLookupFilterFalsePositiveRate() {
+        assertThat(subject.getLookupFilterFalsePositiveRate()).isNaN();
+
+        assertThat(subject.exists(subject.getPath("maps/level1.bsp"))).isTrue();
+        assertThat(subject.getLookupFilterFalsePositiveRate()).isNaN();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(subject.exists(subject.getPath("maps/missing" + i + ".bsp"))).isFalse();
+        }
+        assertThat(subject.getLookupFilterFalsePositiveRate()).isBetween(0.0, 0.2);
+    }
+
+    @Test
+    void readAll() throws IOException {
+        Path level2 = subject.getPath("maps/level2.bsp");
+        Path palette = subject.getPath("palette.pcx");
+
+        Map<Path, ByteBuffer> contents = subject.readAll(Arrays.asList(palette, level2, palette));
+
+        assertThat(contents).containsOnlyKeys(palette, level2);
+        assertThat(contents.keySet()).containsExactly(palette, level2);
+        assertThat(contents.get(palette).isReadOnly()).isTrue();
+        assertThat(contents.get(palette)).isEqualTo(ByteBuffer.wrap("palette.pcx".getBytes(StandardCharsets.UTF_8)));
+        assertThat(contents.get(level2)).isEqualTo(ByteBuffer.wrap("maps/level2.bsp".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(NoSuchFileException.class, () -> subject.readAll(Collections.singletonList(subject.getPath("missing"))));
+    }
+}
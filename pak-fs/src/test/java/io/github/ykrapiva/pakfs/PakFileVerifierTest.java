@@ -0,0 +1,149 @@
+package io.github.ykrapiva.pakfs;
+
+import io.github.ykrapiva.pakfs.PakVerificationReport.Issue;
+import io.github.ykrapiva.pakfs.PakVerificationReport.IssueType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PakFileVerifierTest {
+    @TempDir
+    private Path tempDir;
+    private PakFileSystem subject;
+
+    @AfterEach
+    void tearDown() {
+        if (subject != null) {
+            subject.close();
+        }
+    }
+
+    @Test
+    void verify_whenArchiveIsValid_reportsNoIssues() throws IOException {
+        Path pakPath = tempDir.resolve("test.pak");
+        PakFileCreator.createPakFile(pakPath, "maps/level1.bsp", "palette.pcx");
+        subject = new PakFileSystem(new PakFileSystemProvider(), URI.create("file:" + pakPath));
+
+        PakVerificationReport report = subject.verify(true, 2);
+
+        assertThat(report.isValid()).isTrue();
+        assertThat(report.getIssues()).isEmpty();
+        assertThat(report.getEntryCount()).isEqualTo(2);
+        assertThat(report.getContentHashes()).containsOnlyKeys("maps/level1.bsp", "palette.pcx");
+    }
+
+    @Test
+    void verify_whenRangesAreBroken_reportsIssues() throws IOException {
+        Path pakPath = tempDir.resolve("broken.pak");
+        // 100 bytes of data after the header, then the directory
+        writePakFile(pakPath, 100,
+                "a", 12, 20,
+                "b", 22, 20,
+                "c", 12, 20,
+                "d", 400, 50,
+                "a", 50, 5);
+        subject = new PakFileSystem(new PakFileSystemProvider(), URI.create("file:" + pakPath));
+
+        PakVerificationReport report = subject.verify(true, 3);
+
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getIssues())
+                .extracting(Issue::getType, Issue::getName, Issue::getOtherName)
+                .containsExactlyInAnyOrder(
+                        tuple(IssueType.DUPLICATE_RANGE, "c", "a"),
+                        tuple(IssueType.OVERLAP, "b", "a"),
+                        tuple(IssueType.DUPLICATE_NAME, "a", null),
+                        tuple(IssueType.OUT_OF_RANGE, "d", null),
+                        tuple(IssueType.OVERLAP, "d", null),
+                        tuple(IssueType.UNREADABLE, "d", null));
+        assertThat(report.toJson())
+                .startsWith("{\"archive\":")
+                .contains("\"valid\":false", "{\"type\":\"OVERLAP\",\"name\":\"b\",\"otherName\":\"a\",\"offset\":22");
+    }
+
+    @Test
+    void verify_whenRangesOverlapHeaderOrDirectory_reportsOverlaps() throws IOException {
+        Path pakPath = tempDir.resolve("broken.pak");
+        // 100 bytes of data after the header, then the directory from 112
+        writePakFile(pakPath, 100,
+                "header", 0, 20,
+                "long", 20, 50,
+                "short", 30, 10,
+                "copy", 30, 10,
+                "directory", 100, 20);
+        subject = new PakFileSystem(new PakFileSystemProvider(), URI.create("file:" + pakPath));
+
+        PakVerificationReport report = subject.verify(false, 1);
+
+        assertThat(report.getIssues())
+                .extracting(Issue::getType, Issue::getName, Issue::getOtherName)
+                .containsExactlyInAnyOrder(
+                        tuple(IssueType.OVERLAP, "header", null),
+                        tuple(IssueType.OVERLAP, "short", "long"),
+                        tuple(IssueType.DUPLICATE_RANGE, "copy", "short"),
+                        tuple(IssueType.OVERLAP, "directory", null));
+    }
+
+    @Test
+    void verify_withoutMount_reportsWhatAMountWould() throws IOException {
+        Path pakPath = tempDir.resolve("test.pak");
+        PakFileCreator.createPakFile(pakPath, "maps/level1.bsp", "palette.pcx");
+
+        PakVerificationReport report = new PakFileSystemProvider().verify(pakPath, true, 2);
+
+        assertThat(report.isValid()).isTrue();
+        assertThat(report.getEntryCount()).isEqualTo(2);
+        assertThat(report.getContentHashes()).containsOnlyKeys("maps/level1.bsp", "palette.pcx");
+    }
+
+    @Test
+    void verify_withoutMount_whenHeaderIsBroken_reportsError() throws IOException {
+        Path pakPath = tempDir.resolve("junk.pak");
+        Files.write(pakPath, "JUNK and more junk".getBytes(StandardCharsets.US_ASCII));
+
+        PakVerificationReport report = new PakFileSystemProvider().verify(pakPath, true, 1);
+
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getIssues()).extracting(Issue::getType, Issue::getName)
+                .containsExactly(tuple(IssueType.MALFORMED_HEADER, null));
+    }
+
+    @Test
+    void verify_withoutMount_whenDirectoryIsBroken_reportsError() throws IOException {
+        Path pakPath = tempDir.resolve("truncated.pak");
+        writePakFile(pakPath, 10, "a", 12, 10);
+        Files.write(pakPath, Arrays.copyOf(Files.readAllBytes(pakPath), 40));
+
+        PakVerificationReport report = new PakFileSystemProvider().verify(pakPath, false, 1);
+
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getArchiveSize()).isEqualTo(40);
+        assertThat(report.getIssues()).extracting(Issue::getType).containsExactly(IssueType.MALFORMED_DIRECTORY);
+        assertThat(report.toJson()).contains("\"valid\":false", "\"MALFORMED_DIRECTORY\"");
+    }
+
+    private static void writePakFile(Path path, int dataSize, Object... records) throws IOException {
+        int count = records.length / 3;
+        ByteBuffer buffer = ByteBuffer.allocate(12 + dataSize + count * 64).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put("PACK".getBytes(StandardCharsets.US_ASCII)).putInt(12 + dataSize).putInt(count * 64);
+        buffer.position(12 + dataSize);
+        for (int i = 0; i < records.length; i += 3) {
+            int record = buffer.position();
+            buffer.put(((String) records[i]).getBytes(StandardCharsets.UTF_8)).position(record + 56);
+            buffer.putInt((Integer) records[i + 1]).putInt((Integer) records[i + 2]);
+        }
+        Files.write(path, buffer.array());
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PakFileWriterTest {
+    private static final int BLOCK_SIZE = 1024;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void createBlockCompressed() throws IOException {
+        Path pakPath = tempDir.resolve("test.pak");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("entity ").append(i).append(" origin 0 0 0\n");
+        }
+        byte[] compressible = text.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] random = new byte[3000];
+        new Random(42).nextBytes(random);
+
+        try (PakFileWriter writer = PakFileWriter.createBlockCompressed(pakPath, BLOCK_SIZE)) {
+            writer.write("maps/level1.ent", compressible);
+            writer.write("sound/noise.wav", random);
+            writer.write("empty.txt", new byte[0]);
+        }
+
+        URI uri = URI.create("pak:" + pakPath.toAbsolutePath());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+            Path level = fileSystem.getPath("maps/level1.ent");
+            assertThat(Files.readAllBytes(level)).isEqualTo(compressible);
+            assertThat(Files.readAttributes(level, PakFileAttributes.class).storedSize()).isLessThan(compressible.length);
+
+            Path noise = fileSystem.getPath("sound/noise.wav");
+            assertThat(Files.readAllBytes(noise)).isEqualTo(random);
+            assertThat(Files.readAttributes(noise, PakFileAttributes.class).storedSize()).isEqualTo(random.length);
+
+            assertThat(Files.readAllBytes(fileSystem.getPath("empty.txt"))).isEmpty();
+
+            try (SeekableByteChannel channel = Files.newByteChannel(level)) {
+                ByteBuffer whole = ByteBuffer.allocate(compressible.length);
+                assertThat(channel.read(whole)).isEqualTo(compressible.length);
+                assertThat(channel.read(ByteBuffer.allocate(1))).isEqualTo(-1);
+
+                Random positions = new Random(7);
+                for (int i = 0; i < 20; i++) {
+                    int position = positions.nextInt(compressible.length - 100);
+                    ByteBuffer buffer = ByteBuffer.allocate(100);
+                    channel.position(position);
+                    while (buffer.hasRemaining()) {
+                        channel.read(buffer);
+                    }
+                    assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(compressible, position, position + 100));
+                }
+            }
+        }
+    }
+
+    @Test
+    void createBlockCompressed_whenCompressionDoesNotPay_leavesNoCompressedBytes() throws IOException {
+        Path pakPath = tempDir.resolve("test.pak");
+        byte[] random = new byte[3000];
+        new Random(42).nextBytes(random);
+
+        try (PakFileWriter writer = PakFileWriter.createBlockCompressed(pakPath, BLOCK_SIZE)) {
+            writer.write("sound/noise.wav", random);
+        }
+
+        assertThat(Files.size(pakPath)).isEqualTo(PakDirectoryReader.HEADER_SIZE + random.length
+                + PakDirectoryReader.EXTENDED_RECORD_SIZE);
+    }
+
+    @Test
+    void read_whenBlockCountIsCorrupt_throwsFileFormatException() throws IOException {
+        Path pakPath = tempDir.resolve("test.pak");
+        byte[] content = new byte[3 * BLOCK_SIZE];
+        try (PakFileWriter writer = PakFileWriter.createBlockCompressed(pakPath, BLOCK_SIZE)) {
+            writer.write("maps/level1.bsp", content);
+        }
+
+        // One-byte blocks of an entry claiming 2 GB, so the block count matches the entry size
+        try (FileChannel channel = FileChannel.open(pakPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(PakDirectoryReader.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(header, 0);
+            long directoryOffset = header.getInt(4);
+            channel.write(ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(1).putInt(Integer.MAX_VALUE).flip(),
+                    PakDirectoryReader.HEADER_SIZE);
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.MAX_VALUE).flip(),
+                    directoryOffset + PakDirectoryReader.NAME_SIZE + 4);
+        }
+
+        URI uri = URI.create("pak:" + pakPath.toAbsolutePath());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.emptyMap());
+             SeekableByteChannel channel = Files.newByteChannel(fileSystem.getPath("maps/level1.bsp"))) {
+            assertThatThrownBy(() -> channel.read(ByteBuffer.allocate(16)))
+                    .isInstanceOf(FileFormatException.class)
+                    .hasMessageContaining("exceeds its data");
+        }
+    }
+
+    @Test
+    void create() throws IOException {
+        Path pakPath = tempDir.resolve("test.pak");
+
+        try (PakFileWriter writer = PakFileWriter.create(pakPath)) {
+            writer.write("palette.pcx", "palette".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(new String(Files.readAllBytes(pakPath), 0, 4, StandardCharsets.US_ASCII)).isEqualTo("PACK");
+        URI uri = URI.create("pak:" + pakPath.toAbsolutePath());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.emptyMap())) {
+            assertThat(Files.readAllBytes(fileSystem.getPath("palette.pcx")))
+                    .isEqualTo("palette".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PakIoSchedulerTest {
+    private final byte[] bytes = new byte[256 * 1024];
+    private final RecordingSource source = new RecordingSource(bytes);
+    /**
+     * Defers background reads for as long as the tests run, so that their order does not depend on timing.
+     */
+    private final PakIoScheduler scheduler = new PakIoScheduler(0, TimeUnit.MINUTES.toNanos(1));
+
+    {
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 31);
+        }
+    }
+
+    @Test
+    void read_background() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(100);
+        assertThat(scheduler.read(source, buffer, 1000, PakIoPriority.BULK)).isEqualTo(100);
+        assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(bytes, 1000, 1100));
+
+        assertThat(scheduler.read(source, ByteBuffer.allocate(100), bytes.length, PakIoPriority.PREFETCH)).isEqualTo(-1);
+        assertThat(scheduler.queuedReads()).isZero();
+    }
+
+    @Test
+    void read_queuedWhileBusy_prefetchBeforeBulkAndAdjacentReadsCoalesced() throws Exception {
+        source.blockNextRead();
+        CompletableFuture<byte[]> first = readAsync(0, 10, PakIoPriority.PREFETCH);
+        source.awaitBlocked();
+
+        CompletableFuture<byte[]> bulk = readAsync(50_000, 10, PakIoPriority.BULK);
+        awaitQueued(1);
+        List<CompletableFuture<byte[]>> prefetches = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            prefetches.add(readAsync(10_000 + i * 100, 100, PakIoPriority.PREFETCH));
+            awaitQueued(2 + i);
+        }
+        source.unblock();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 0, 10));
+        assertThat(bulk.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 50_000, 50_010));
+        for (int i = 0; i < 4; i++) {
+            int position = 10_000 + i * 100;
+            assertThat(prefetches.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, position, position + 100));
+        }
+        assertThat(source.reads).containsExactly(0L, 10_000L, 50_000L);
+    }
+
+    @Test
+    void read_backgroundWaitsForInteractiveReads() throws Exception {
+        source.blockNextRead();
+        CompletableFuture<byte[]> interactive = readAsync(0, 10, PakIoPriority.INTERACTIVE);
+        source.awaitBlocked();
+
+        CompletableFuture<byte[]> prefetch = readAsync(100, 10, PakIoPriority.PREFETCH);
+        awaitQueued(1);
+        assertThat(source.reads).containsExactly(0L);
+
+        source.unblock();
+        assertThat(interactive.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 0, 10));
+        assertThat(prefetch.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 100, 110));
+    }
+
+    @Test
+    void read_whenDeferralExpires_runsDespiteInteractiveReads() throws Exception {
+        PakIoScheduler impatientScheduler = new PakIoScheduler(0, 0);
+        source.blockNextRead();
+        CompletableFuture<Integer> interactive = CompletableFuture.supplyAsync(() -> read(impatientScheduler, 0, PakIoPriority.INTERACTIVE),
+                runnable -> new Thread(runnable).start());
+        source.awaitBlocked();
+
+        assertThat(impatientScheduler.read(source, ByteBuffer.allocate(10), 100, PakIoPriority.BULK)).isEqualTo(10);
+
+        source.unblock();
+        assertThat(interactive.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+    }
+
+    @Test
+    void read_priorityClassesRunIndependently() throws Exception {
+        source.blockNextRead();
+        CompletableFuture<byte[]> bulk = readAsync(0, 10, PakIoPriority.BULK);
+        source.awaitBlocked();
+
+        assertThat(readAsync(100, 10, PakIoPriority.PREFETCH).get(5, TimeUnit.SECONDS))
+                .isEqualTo(Arrays.copyOfRange(bytes, 100, 110));
+
+        source.unblock();
+        assertThat(bulk.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 0, 10));
+    }
+
+    @Test
+    void read_backgroundRunsAsManyReadsAsReserved() throws Exception {
+        source.blockNextRead();
+        CompletableFuture<byte[]> first = readAsync(0, 10, PakIoPriority.BULK);
+        source.awaitBlocked();
+
+        CompletableFuture<byte[]> second = readAsync(100, 10, PakIoPriority.BULK);
+        awaitQueued(1);
+
+        try (PakIoScheduler.Reservation reservation = scheduler.reserve(PakIoPriority.BULK, 2)) {
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 100, 110));
+            assertThat(first).isNotDone();
+        }
+
+        source.unblock();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(Arrays.copyOfRange(bytes, 0, 10));
+    }
+
+    @Test
+    void scheduleRead_whenRateIsCapped_spacesReadsBySize() {
+        scheduler.setBackgroundRate(1024 * 1024);
+        long now = System.nanoTime();
+
+        assertThat(scheduler.scheduleRead(64 * 1024, now)).isEqualTo(now);
+        assertThat(scheduler.scheduleRead(64 * 1024, now)).isEqualTo(now + TimeUnit.MILLISECONDS.toNanos(62) + 500_000);
+        assertThat(scheduler.scheduleRead(64 * 1024, now + 1)).isEqualTo(now + TimeUnit.MILLISECONDS.toNanos(125));
+
+        long idle = now + TimeUnit.SECONDS.toNanos(1);
+        assertThat(scheduler.scheduleRead(64 * 1024, idle)).isEqualTo(idle);
+
+        scheduler.setBackgroundRate(0);
+        assertThat(scheduler.scheduleRead(64 * 1024, idle)).isEqualTo(idle);
+    }
+
+    @Test
+    void read_interactiveIsNotThrottled() throws Exception {
+        scheduler.setBackgroundRate(1);
+        scheduler.scheduleRead(1024 * 1024, System.nanoTime());
+
+        assertThat(readAsync(0, 64 * 1024, PakIoPriority.INTERACTIVE).get(5, TimeUnit.SECONDS))
+                .isEqualTo(Arrays.copyOfRange(bytes, 0, 64 * 1024));
+    }
+
+    private CompletableFuture<byte[]> readAsync(long position, int length, PakIoPriority priority) {
+        return CompletableFuture.supplyAsync(() -> {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            try {
+                scheduler.read(source, buffer, position, priority);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return buffer.array();
+        }, runnable -> new Thread(runnable).start());
+    }
+
+    private int read(PakIoScheduler ioScheduler, long position, PakIoPriority priority) {
+        try {
+            return ioScheduler.read(source, ByteBuffer.allocate(10), position, priority);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits until the given number of reads are queued.
+     */
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.queuedReads() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(scheduler.queuedReads()).isEqualTo(count);
+    }
+
+    private static final class RecordingSource implements PakByteSource {
+        private final byte[] bytes;
+        final List<Long> reads = Collections.synchronizedList(new ArrayList<>());
+        private volatile CountDownLatch blocked;
+        private volatile CountDownLatch gate;
+        private volatile CountDownLatch pendingGate;
+
+        RecordingSource(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        void blockNextRead() {
+            blocked = new CountDownLatch(1);
+            gate = new CountDownLatch(1);
+            pendingGate = gate;
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void unblock() {
+            pendingGate.countDown();
+        }
+
+        @Override
+        public long size() {
+            return bytes.length;
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            reads.add(position);
+            CountDownLatch currentGate = gate;
+            if (currentGate != null) {
+                gate = null;
+                blocked.countDown();
+                try {
+                    currentGate.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if (position >= bytes.length) {
+                return -1;
+            }
+            int length = (int) Math.min(dst.remaining(), bytes.length - position);
+            dst.put(bytes, (int) position, length);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the multi-release jar built by the {@code jdk22} profile, whose memory segment versions of
+ * {@link MappedByteSource} and {@link PakBlockCache} have to replace the Java 8 ones.
+ */
+@EnabledForJreRange(min = JRE.JAVA_22)
+class PakMemorySegmentMultiReleaseIT {
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void mappedByteSource_readsAndSlicesMemorySegments() throws IOException {
+        assertThat(Arrays.stream(MappedByteSource.class.getDeclaredFields()).map(field -> field.getName()))
+                .contains("sliceWindows");
+        Path file = tempDir.resolve("test.bin");
+        Files.write(file, CONTENT.getBytes(StandardCharsets.US_ASCII));
+        MappedByteSource subject = new MappedByteSource(file, 4, null);
+
+        ByteBuffer slice = subject.slice(16, 16);
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+        assertThat(subject.read(buffer, 10)).isEqualTo(20);
+        assertThat(new String(buffer.array(), StandardCharsets.US_ASCII)).isEqualTo(CONTENT.substring(10, 30));
+
+        // The window of the slice and the two windows read from
+        assertThat(subject.unmap()).isEqualTo(16 + 2 * 16);
+        assertThat(StandardCharsets.US_ASCII.decode(slice).toString()).isEqualTo(CONTENT.substring(16, 32));
+        buffer.clear();
+        assertThat(subject.read(buffer, 20)).isEqualTo(16);
+        assertThat(new String(buffer.array(), 0, 16, StandardCharsets.US_ASCII)).isEqualTo(CONTENT.substring(20));
+    }
+
+    @Test
+    void blockCache_copiesFromBlocksOffTheHeap() throws IOException {
+        assertThat(Arrays.stream(PakBlockCache.class.getDeclaredClasses()).map(Class::getSimpleName))
+                .contains("Block");
+        PakBlockCache subject = new PakBlockCache(1 << 20);
+        PakFileEntry entry = new PakFileEntry("entry", 0, 32);
+        AtomicInteger loads = new AtomicInteger();
+        byte[] block = CONTENT.substring(0, 16).getBytes(StandardCharsets.US_ASCII);
+
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+        assertThat(subject.copy(entry, 0, () -> load(loads, block), 4, buffer)).isEqualTo(12);
+        buffer.clear();
+        assertThat(subject.copy(entry, 0, () -> load(loads, block), 6, buffer)).isEqualTo(10);
+        assertThat(new String(buffer.array(), 0, 10, StandardCharsets.US_ASCII)).isEqualTo(CONTENT.substring(6, 16));
+        assertThat(loads).hasValue(1);
+
+        // Closed, the cache frees its blocks and loads every block again without caching it
+        subject.close();
+        buffer.clear();
+        assertThat(subject.copy(entry, 0, () -> load(loads, block), 0, buffer)).isEqualTo(16);
+        buffer.clear();
+        assertThat(subject.copy(entry, 0, () -> load(loads, block), 0, buffer)).isEqualTo(16);
+        assertThat(loads).hasValue(3);
+    }
+
+    private static byte[] load(AtomicInteger loads, byte[] block) {
+        loads.incrementAndGet();
+        return block;
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.ProviderMismatchException;
 import java.nio.file.WatchEvent.Kind;
 import java.nio.file.WatchEvent.Modifier;
 import java.util.ArrayList;
@@ -35,8 +36,9 @@ class PakPathTest {
 
     @Test
     void getFileName() {
-        assertThat(subject.getFileName().toString()).isEqualTo("/");
+        assertThat(subject.getFileName()).isNull();
         assertThat(entrySubject.getFileName().toString()).isEqualTo("maps/level.bsp");
+        assertThat(entrySubject.getFileName()).isInstanceOf(PakPath.class);
     }
 
     @Test
@@ -110,6 +112,7 @@ class PakPathTest {
     void toUri() {
         assertThat(subject.toUri().toString()).isEqualTo("pak:/tmp/test.pak");
         assertThat(entrySubject.toUri().toString()).isEqualTo("pak:/tmp/test.pak!maps/level.bsp");
+        assertThat(entrySubject.toUri()).isSameAs(entrySubject.toUri());
     }
 
     @Test
@@ -132,8 +135,8 @@ class PakPathTest {
     @Test
     @SuppressWarnings("DataFlowIssue")
     void register() {
-        assertThrows(UnsupportedOperationException.class, () -> subject.register(null, null, (Modifier[]) null));
-        assertThrows(UnsupportedOperationException.class, () -> subject.register(null, (Kind<?>) null));
+        assertThrows(ProviderMismatchException.class, () -> subject.register(null, null, (Modifier[]) null));
+        assertThrows(ProviderMismatchException.class, () -> subject.register(null, (Kind<?>) null));
     }
 
     @Test
@@ -151,6 +154,7 @@ class PakPathTest {
     void compareTo() {
         assertThat(subject).usingDefaultComparator().isLessThan(entrySubject);
         assertThat(subject).usingDefaultComparator().isEqualByComparingTo(subject);
+        assertThat(entrySubject.compareTo(Paths.get("maps/level.bsp"))).isZero();
     }
 
     @Test
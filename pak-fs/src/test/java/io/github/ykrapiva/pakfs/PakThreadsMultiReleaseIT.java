@@ -0,0 +1,30 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the multi-release jar built by the {@code jdk21} profile, whose JDK 21 version of
+ * {@link PakThreads} has to replace the Java 8 one.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class PakThreadsMultiReleaseIT {
+    @Test
+    void newBlockingExecutor_startsVirtualThreads() throws Exception {
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        ExecutorService executor = PakThreads.newBlockingExecutor("pak-fs-test");
+        try {
+            assertThat(executor.submit(() -> isVirtual.invoke(Thread.currentThread())).get(10, TimeUnit.SECONDS))
+                    .isEqualTo(true);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
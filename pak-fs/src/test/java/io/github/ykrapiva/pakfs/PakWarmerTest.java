@@ -0,0 +1,60 @@
+package io.github.ykrapiva.pakfs;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PakWarmerTest {
+    @Test
+    void ranges() {
+        assertThat(PakWarmer.ranges(Arrays.asList(
+                new PakFileEntry("c", 1_000_000, 10),
+                new PakFileEntry("b", 30, 10),
+                new PakFileEntry("empty", 500_000, 0),
+                new PakFileEntry("a", 10, 25))))
+                .containsExactly(new long[]{10, 40}, new long[]{1_000_000, 1_000_010});
+    }
+
+    @Test
+    void orderedRanges_keepOrder() {
+        assertThat(PakWarmer.orderedRanges(Arrays.asList(
+                new PakFileEntry("c", 1_000_000, 10),
+                new PakFileEntry("d", 1_000_010, 10),
+                new PakFileEntry("a", 10, 25),
+                new PakFileEntry("b", 30, 10))))
+                .containsExactly(new long[]{1_000_000, 1_000_020}, new long[]{10, 40});
+    }
+
+    @Test
+    void warm_isThrottled() throws Exception {
+        int size = 2 * PakWarmer.CHUNK_SIZE;
+        PakByteSource source = new ByteBufferByteSource(ByteBuffer.allocate(size), 0);
+        long bytesPerSecond = 8L * PakWarmer.CHUNK_SIZE;
+
+        long startTime = System.nanoTime();
+        long warmed = PakWarmer.warm(source, Collections.singletonList(new PakFileEntry("a", 0, size)),
+                false, bytesPerSecond, new CompletableFuture<>());
+
+        assertThat(warmed).isEqualTo(size);
+        assertThat(System.nanoTime() - startTime).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void warm_whenCancelled_stops() {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        future.cancel(false);
+        PakByteSource source = new ByteBufferByteSource(ByteBuffer.allocate(100), 0);
+
+        assertThatThrownBy(() ->
+                PakWarmer.warm(source, Collections.singletonList(new PakFileEntry("a", 0, 100)), false, 0, future))
+                .isInstanceOf(CancellationException.class);
+    }
+}
@@ -0,0 +1,174 @@
+package io.github.ykrapiva.pakfs.tool;
+
+import io.github.ykrapiva.pakfs.PakFileSystemProvider;
+import io.github.ykrapiva.pakfs.PakVerificationReport;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.spi.FileSystemProvider;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Command line tool listing, extracting and verifying archives. It mounts archives through the installed
+ * {@code pak} provider and is built into a native executable by the {@code native} profile. {@code help} only
+ * prints the usage, so that its run time is the startup time of the tool.
+ * <pre>
+ * pak help
+ * pak list archive.pak
+ * pak extract archive.pak directory [entry...]
+ * pak verify [--checksums] archive.pak
+ * </pre>
+ */
+public final class PakTool {
+    static final int EXIT_OK = 0;
+    static final int EXIT_FAILURE = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final String USAGE = "Usage:\n"
+            + "  pak help\n"
+            + "  pak list <archive>\n"
+            + "  pak extract <archive> <directory> [entry...]\n"
+            + "  pak verify [--checksums] <archive>";
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    PakTool(@Nonnull PrintStream out, @Nonnull PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        System.exit(new PakTool(System.out, System.err).run(args));
+    }
+
+    /**
+     * @return exit status
+     */
+    int run(@Nonnull String... args) {
+        if (args.length == 0) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        List<String> arguments = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        try {
+            switch (args[0]) {
+                case "help":
+                    return arguments.isEmpty() ? help() : usage();
+                case "list":
+                    return arguments.size() == 1 ? list(Paths.get(arguments.get(0))) : usage();
+                case "extract":
+                    return arguments.size() >= 2
+                            ? extract(Paths.get(arguments.get(0)), Paths.get(arguments.get(1)), arguments.subList(2, arguments.size()))
+                            : usage();
+                case "verify":
+                    boolean checksums = arguments.remove("--checksums");
+                    return arguments.size() == 1 ? verify(Paths.get(arguments.get(0)), checksums) : usage();
+                default:
+                    return usage();
+            }
+        } catch (IOException | RuntimeException e) {
+            err.println("pak: " + e);
+            return EXIT_FAILURE;
+        }
+    }
+
+    private int help() {
+        out.println(USAGE);
+        return EXIT_OK;
+    }
+
+    private int usage() {
+        err.println(USAGE);
+        return EXIT_USAGE;
+    }
+
+    /**
+     * Prints the size and the name of every entry.
+     */
+    private int list(@Nonnull Path archive) throws IOException {
+        try (FileSystem fs = mount(archive);
+             DirectoryStream<Path> entries = Files.newDirectoryStream(fs.getPath(fs.getSeparator()))) {
+            for (Path entry : entries) {
+                out.println(Files.size(entry) + "\t" + entry);
+            }
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Copies the named entries, or all entries, into the directory, creating the directories of their names.
+     */
+    private int extract(@Nonnull Path archive, @Nonnull Path directory, @Nonnull List<String> names) throws IOException {
+        Path target = directory.toAbsolutePath().normalize();
+        try (FileSystem fs = mount(archive)) {
+            List<Path> entries = new ArrayList<>();
+            if (names.isEmpty()) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(fs.getPath(fs.getSeparator()))) {
+                    stream.forEach(entries::add);
+                }
+            } else {
+                for (String name : names) {
+                    entries.add(fs.getPath(name));
+                }
+            }
+
+            for (Path entry : entries) {
+                Path file = target.resolve(entry.toString()).normalize();
+                if (!file.startsWith(target) || file.equals(target)) {
+                    throw new IOException("Entry " + entry + " lies outside of " + directory);
+                }
+                Files.createDirectories(file.getParent());
+                Files.copy(entry, file, StandardCopyOption.REPLACE_EXISTING);
+                out.println(entry);
+            }
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Prints the verification report as JSON. The archive is not mounted, so that a broken header or directory
+     * is reported as well.
+     *
+     * @return {@link #EXIT_FAILURE} if the archive has errors
+     */
+    private int verify(@Nonnull Path archive, boolean checksums) throws IOException {
+        if (!Files.isRegularFile(archive)) {
+            throw new IOException("No such archive: " + archive);
+        }
+        PakVerificationReport report = provider().verify(archive, checksums, Runtime.getRuntime().availableProcessors());
+        out.println(report.toJson());
+        return report.isValid() ? EXIT_OK : EXIT_FAILURE;
+    }
+
+    @Nonnull
+    private static PakFileSystemProvider provider() {
+        for (FileSystemProvider provider : FileSystemProvider.installedProviders()) {
+            if (provider instanceof PakFileSystemProvider) {
+                return (PakFileSystemProvider) provider;
+            }
+        }
+        return new PakFileSystemProvider();
+    }
+
+    @Nonnull
+    private static FileSystem mount(@Nonnull Path archive) throws IOException {
+        if (!Files.isRegularFile(archive)) {
+            throw new IOException("No such archive: " + archive);
+        }
+        URI uri = URI.create("pak:" + archive.toAbsolutePath().toUri().getRawPath());
+        return FileSystems.newFileSystem(uri, Collections.emptyMap());
+    }
+}
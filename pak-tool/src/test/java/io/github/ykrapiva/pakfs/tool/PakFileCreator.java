@@ -0,0 +1,42 @@
+package io.github.ykrapiva.pakfs.tool;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes archives of stored entries whose content is the entry name, like the creator of the library tests.
+ */
+class PakFileCreator {
+    private static final int HEADER_SIZE = 12;
+    private static final int DIRECTORY_RECORD_SIZE = 64;
+    private static final int NAME_SIZE = 56;
+
+    static void createPakFile(@Nonnull Path path, @Nonnull String... entries) throws IOException {
+        int contentSize = 0;
+        for (String entry : entries) {
+            contentSize += entry.getBytes(StandardCharsets.UTF_8).length;
+        }
+        int directoryOffset = HEADER_SIZE + contentSize;
+        int directorySize = entries.length * DIRECTORY_RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(directoryOffset + directorySize).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put("PACK".getBytes(StandardCharsets.US_ASCII)).putInt(directoryOffset).putInt(directorySize);
+        for (String entry : entries) {
+            buffer.put(entry.getBytes(StandardCharsets.UTF_8));
+        }
+        int offset = HEADER_SIZE;
+        for (String entry : entries) {
+            byte[] name = entry.getBytes(StandardCharsets.UTF_8);
+            int recordStart = buffer.position();
+            buffer.put(name).position(recordStart + NAME_SIZE);
+            buffer.putInt(offset).putInt(name.length);
+            offset += name.length;
+        }
+        Files.write(path, buffer.array());
+    }
+}
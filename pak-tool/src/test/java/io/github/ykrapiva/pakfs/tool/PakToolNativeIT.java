@@ -0,0 +1,88 @@
+package io.github.ykrapiva.pakfs.tool;
+
+import com.google.common.io.ByteStreams;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the native executable built by the {@code native} profile, whose path is passed in the
+ * {@code pakfs.tool.executable} system property.
+ * <p>
+ * Startup is the median run time of {@code pak help}, which does nothing but print the usage, less the median
+ * run time of {@code true}, which is the cost of spawning a process. The JVM baseline is the same command run by
+ * the {@code java} launcher of the test JVM on the test class path.
+ */
+@EnabledIfSystemProperty(named = PakToolNativeIT.EXECUTABLE_PROPERTY, matches = ".+")
+@DisabledOnOs(OS.WINDOWS)
+class PakToolNativeIT {
+    static final String EXECUTABLE_PROPERTY = "pakfs.tool.executable";
+    private static final int RUNS = 7;
+    private static final long MAX_STARTUP_MILLIS = 50;
+    /**
+     * Native startup has to take less than the JVM startup divided by this factor.
+     */
+    private static final int MIN_SPEEDUP = 3;
+    private static final long MAX_LIST_MILLIS = 100;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void help_startsMuchFasterThanTheJvm() throws IOException, InterruptedException {
+        long spawnNanos = medianRunNanos("true");
+        long nativeStartupNanos = medianRunNanos(executable(), "help") - spawnNanos;
+        long jvmStartupNanos = medianRunNanos(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), PakTool.class.getName(), "help") - spawnNanos;
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(nativeStartupNanos)).isLessThan(MAX_STARTUP_MILLIS);
+        assertThat(nativeStartupNanos * MIN_SPEEDUP).isLessThan(jvmStartupNanos);
+    }
+
+    @Test
+    void list_listsEntriesShortlyAfterStartup() throws IOException, InterruptedException {
+        Path pakPath = tempDir.resolve("test.pak");
+        PakFileCreator.createPakFile(pakPath, "maps/level1.bsp", "palette.pcx");
+
+        assertThat(run(executable(), "list", pakPath.toString())).contains("maps/level1.bsp", "palette.pcx");
+        long listNanos = medianRunNanos(executable(), "list", pakPath.toString()) - medianRunNanos(executable(), "help");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(listNanos)).isLessThan(MAX_LIST_MILLIS);
+    }
+
+    private static String executable() {
+        return System.getProperty(EXECUTABLE_PROPERTY);
+    }
+
+    private static long medianRunNanos(String... command) throws IOException, InterruptedException {
+        long[] runNanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long startTime = System.nanoTime();
+            run(command);
+            runNanos[i] = System.nanoTime() - startTime;
+        }
+        Arrays.sort(runNanos);
+        return runNanos[RUNS / 2];
+    }
+
+    /**
+     * @return output of the command, which has to succeed
+     */
+    private static String run(String... command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(ByteStreams.toByteArray(process.getInputStream()), StandardCharsets.UTF_8);
+        assertThat(process.waitFor(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).as(output).isEqualTo(PakTool.EXIT_OK);
+        return output;
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.ykrapiva.pakfs.tool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PakToolTest {
+    @TempDir
+    private Path tempDir;
+    private Path pakPath;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+    private final PakTool subject = new PakTool(new PrintStream(out, true), new PrintStream(err, true));
+
+    @BeforeEach
+    void setUp() throws IOException {
+        pakPath = tempDir.resolve("test archive.pak");
+        PakFileCreator.createPakFile(pakPath, "maps/level1.bsp", "palette.pcx");
+    }
+
+    @Test
+    void list_printsSizesAndNames() {
+        assertThat(subject.run("list", pakPath.toString())).isEqualTo(PakTool.EXIT_OK);
+        assertThat(lines(out)).containsExactly("15\tmaps/level1.bsp", "11\tpalette.pcx");
+    }
+
+    @Test
+    void extract_copiesAllEntries() throws IOException {
+        Path directory = tempDir.resolve("out");
+
+        assertThat(subject.run("extract", pakPath.toString(), directory.toString())).isEqualTo(PakTool.EXIT_OK);
+
+        assertThat(directory.resolve("maps/level1.bsp")).hasContent("maps/level1.bsp");
+        assertThat(directory.resolve("palette.pcx")).hasContent("palette.pcx");
+    }
+
+    @Test
+    void extract_copiesNamedEntries() {
+        Path directory = tempDir.resolve("out");
+
+        assertThat(subject.run("extract", pakPath.toString(), directory.toString(), "palette.pcx")).isEqualTo(PakTool.EXIT_OK);
+
+        assertThat(directory.resolve("palette.pcx")).hasContent("palette.pcx");
+        assertThat(directory.resolve("maps")).doesNotExist();
+    }
+
+    @Test
+    void extract_whenEntryIsMissing_fails() {
+        assertThat(subject.run("extract", pakPath.toString(), tempDir.toString(), "missing.txt")).isEqualTo(PakTool.EXIT_FAILURE);
+        assertThat(err.toString()).contains("missing.txt");
+    }
+
+    @Test
+    void extract_whenEntryEscapesDirectory_fails() throws IOException {
+        Path evilPakPath = tempDir.resolve("evil.pak");
+        PakFileCreator.createPakFile(evilPakPath, "../evil.txt");
+
+        assertThat(subject.run("extract", evilPakPath.toString(), tempDir.resolve("out").toString())).isEqualTo(PakTool.EXIT_FAILURE);
+        assertThat(tempDir.resolve("evil.txt")).doesNotExist();
+    }
+
+    @Test
+    void verify_printsReport() {
+        assertThat(subject.run("verify", "--checksums", pakPath.toString())).isEqualTo(PakTool.EXIT_OK);
+        assertThat(out.toString()).contains("\"valid\":true", "\"palette.pcx\"");
+    }
+
+    @Test
+    void verify_whenHeaderIsBroken_printsReportWithTheError() throws IOException {
+        Path junkPath = tempDir.resolve("junk.pak");
+        Files.write(junkPath, "JUNK and more junk".getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(subject.run("verify", junkPath.toString())).isEqualTo(PakTool.EXIT_FAILURE);
+        assertThat(out.toString()).contains("\"valid\":false", "\"MALFORMED_HEADER\"");
+        assertThat(err.toString()).isEmpty();
+    }
+
+    @Test
+    void help_printsUsage() {
+        assertThat(subject.run("help")).isEqualTo(PakTool.EXIT_OK);
+        assertThat(out.toString()).contains("Usage:");
+        assertThat(err.toString()).isEmpty();
+    }
+
+    @Test
+    void run_withWrongArguments_printsUsage() {
+        assertThat(subject.run()).isEqualTo(PakTool.EXIT_USAGE);
+        assertThat(subject.run("list")).isEqualTo(PakTool.EXIT_USAGE);
+        assertThat(subject.run("unpack", pakPath.toString())).isEqualTo(PakTool.EXIT_USAGE);
+        assertThat(err.toString()).contains("Usage:");
+    }
+
+    @Test
+    void run_whenArchiveIsMissing_fails() {
+        assertThat(subject.run("list", tempDir.resolve("missing.pak").toString())).isEqualTo(PakTool.EXIT_FAILURE);
+    }
+
+    private static String[] lines(ByteArrayOutputStream stream) {
+        return new String(stream.toByteArray(), StandardCharsets.UTF_8).split("\\R");
+    }
+}